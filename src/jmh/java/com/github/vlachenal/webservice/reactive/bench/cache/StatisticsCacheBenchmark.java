@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.cache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CallDTO;
+
+
+/**
+ * Statistics cache benchmark: compares current cache with former synchronized
+ * implementation on the handler path (one registration and one merge per call).<br>
+ * Run {@link #main(String[])} to get results from 1 to 64 threads.
+ *
+ * @author Vincent Lachenal
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticsCacheBenchmark {
+
+  // Attributes +
+  /** Number of distinct sequences (bounds cache size) */
+  private static final int NB_SEQ = 1 << 16;
+
+  /** Methods used by customer handler */
+  private static final String[] METHODS = {"get", "create", "list"};
+
+  /** Benchmarked thread counts */
+  private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+  // Attributes -
+
+
+  // States +
+  /**
+   * Shared caches
+   */
+  @State(Scope.Benchmark)
+  public static class Caches {
+
+    /** Current cache */
+    private final StatisticsCache current = new StatisticsCache();
+
+    /** Former cache */
+    private final SynchronizedStatisticsCache sync = new SynchronizedStatisticsCache();
+
+    /**
+     * Clean caches between iterations
+     */
+    @Setup(Level.Iteration)
+    public void clean() {
+      current.clean();
+      sync.clean();
+    }
+
+  }
+
+  /**
+   * Calls generated by one thread
+   */
+  @State(Scope.Thread)
+  public static class Calls {
+
+    /**
+     * Build a new call
+     *
+     * @return the call
+     */
+    public CallDTO next() {
+      final ThreadLocalRandom rand = ThreadLocalRandom.current();
+      final CallDTO call = new CallDTO();
+      call.setSeq(rand.nextInt(NB_SEQ));
+      call.setProtocol("webflux");
+      call.setMethod(METHODS[rand.nextInt(METHODS.length)]);
+      call.setServerStart(System.nanoTime());
+      call.setServerEnd(System.nanoTime());
+      return call;
+    }
+
+  }
+  // States -
+
+
+  // Benchmarks +
+  /**
+   * Register and merge call in current cache
+   *
+   * @param caches the caches
+   * @param calls the thread calls
+   *
+   * @return the merged call
+   */
+  @Benchmark
+  public CallDTO current(final Caches caches, final Calls calls) {
+    final CallDTO call = calls.next();
+    caches.current.register(call);
+    caches.current.mergeCall(call);
+    return call;
+  }
+
+  /**
+   * Register and merge call in former synchronized cache
+   *
+   * @param caches the caches
+   * @param calls the thread calls
+   *
+   * @return the merged call
+   */
+  @Benchmark
+  public CallDTO synchronizedMap(final Caches caches, final Calls calls) {
+    final CallDTO call = calls.next();
+    caches.sync.register(call);
+    caches.sync.mergeCall(call);
+    return call;
+  }
+  // Benchmarks -
+
+
+  /**
+   * Run benchmark from 1 to 64 threads
+   *
+   * @param args arguments ... not used
+   *
+   * @throws RunnerException benchmark error
+   */
+  public static void main(final String[] args) throws RunnerException {
+    for(final int threads : THREADS) {
+      final Options opts = new OptionsBuilder().include(StatisticsCacheBenchmark.class.getSimpleName()).threads(threads).build();
+      new Runner(opts).run();
+    }
+  }
+
+}
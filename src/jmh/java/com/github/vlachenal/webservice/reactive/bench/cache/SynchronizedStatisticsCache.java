@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CallDTO;
+
+
+/**
+ * Former statistics cache implementation (synchronized hash map) used as
+ * benchmark reference.<br>
+ * Merge is synchronized too: former unsynchronized read was a data race.
+ *
+ * @author Vincent Lachenal
+ */
+public class SynchronizedStatisticsCache {
+
+  // Attributes +
+  /** Calls statistics */
+  private final Map<String,CallDTO> calls;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link SynchronizedStatisticsCache} default constructor
+   */
+  public SynchronizedStatisticsCache() {
+    calls = new HashMap<>();
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Register call into statistics call cache
+   *
+   * @param call the call to register
+   */
+  public synchronized void register(final CallDTO call) {
+    calls.put(call.getKey(), call);
+  }
+
+  /**
+   * Merge call
+   *
+   * @param call the client call statistic
+   */
+  public synchronized void mergeCall(final CallDTO call) {
+    Optional.ofNullable(calls.get(call.getKey())).ifPresent(regCall -> {
+      call.setServerStart(regCall.getServerStart());
+      call.setServerEnd(regCall.getServerEnd());
+    });
+  }
+
+  /**
+   * Clean cache
+   */
+  public synchronized void clean() {
+    calls.clear();
+  }
+  // Methods -
+
+}
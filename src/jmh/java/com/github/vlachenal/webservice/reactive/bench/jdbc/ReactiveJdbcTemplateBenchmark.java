@@ -0,0 +1,370 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.jdbc;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.zaxxer.hikari.HikariDataSource;
+
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+
+/**
+ * {@link ReactiveJdbcTemplate} benchmark: compares reactive queries and batch
+ * updates with {@link JdbcTemplate} ones on the in-memory HSQLDB customer
+ * schema ({@code schema-hsqldb.sql}).<br>
+ * Queries are parameterized by number of rows and by subscriber demand
+ * pattern, batch updates by number of rows and batch size.
+ * Run {@link #main(String[])} to get average time and allocation rate (GC
+ * profiler).
+ *
+ * @author Vincent Lachenal
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReactiveJdbcTemplateBenchmark {
+
+  // Attributes +
+  /** Select all customers SQL request */
+  private static final String REQ_LIST_ALL = "SELECT id,first_name,last_name,birth_date,email FROM Customer";
+
+  /** Delete all customers SQL request */
+  private static final String REQ_DELETE_ALL = "DELETE FROM Customer";
+
+  /** Insert customer SQL request */
+  private static final String ADD_CUSTOMER = "INSERT INTO Customer "
+      + "(id,first_name,last_name,birth_date,email) "
+      + "VALUES (?,?,?,?,?)";
+
+  /** Bounded demand request size */
+  private static final int BOUNDED_DEMAND = 256;
+
+  /** Number of threads of scheduled template executor (same as default JDBC pool) */
+  private static final int NB_THREADS = 4;
+
+  /** Customer row mapper */
+  private static final RowMapper<CustomerDTO> CUSTOMER_MAPPER = (rs, rowNum) -> {
+    final CustomerDTO dto = new CustomerDTO(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3));
+    dto.setBirthDate(rs.getDate(4));
+    dto.setEmail(rs.getString(5));
+    return dto;
+  };
+
+  /** Customer statement setter */
+  private static final ParameterizedPreparedStatementSetter<CustomerDTO> CUSTOMER_SETTER = (ps, dto) -> {
+    ps.setObject(1, UUID.fromString(dto.getId()));
+    ps.setString(2, dto.getFirstName());
+    ps.setString(3, dto.getLastName());
+    ps.setDate(4, new Date(dto.getBirthDate().getTime()));
+    ps.setString(5, dto.getEmail());
+  };
+  // Attributes -
+
+
+  // States +
+  /**
+   * Subscriber demand pattern
+   */
+  public enum Demand {
+
+    /** Everything is requested at subscription */
+    UNBOUNDED,
+
+    /** Rows are requested one by one */
+    ONE,
+
+    /** Rows are requested by {@value ReactiveJdbcTemplateBenchmark#BOUNDED_DEMAND} */
+    BOUNDED
+
+  }
+
+  /**
+   * In-memory database and templates
+   */
+  public abstract static class Database {
+
+    /** Data source */
+    protected HikariDataSource dataSource;
+
+    /** Spring JDBC template */
+    protected JdbcTemplate jdbc;
+
+    /** Reactive JDBC template (requests are executed on subscriber thread) */
+    protected ReactiveJdbcTemplate reactive;
+
+    /** Reactive JDBC template with scheduler */
+    protected ReactiveJdbcTemplate scheduled;
+
+    /** Scheduler executor */
+    private ExecutorService executor;
+
+    /**
+     * Create customer schema and templates
+     *
+     * @param name the in-memory database name
+     */
+    protected void open(final String name) {
+      dataSource = (HikariDataSource)DataSourceBuilder.create()
+          .driverClassName("org.hsqldb.jdbcDriver")
+          .url("jdbc:hsqldb:mem:" + name + ";sql.syntax_pgs=true")
+          .username("apibenchmark")
+          .password("apibenchmark")
+          .build();
+      new ResourceDatabasePopulator(new ClassPathResource("schema-hsqldb.sql")).execute(dataSource);
+      executor = Executors.newFixedThreadPool(NB_THREADS);
+      final Scheduler scheduler = Schedulers.fromExecutor(executor, true);
+      jdbc = new JdbcTemplate(dataSource);
+      reactive = new ReactiveJdbcTemplate(dataSource);
+      scheduled = new ReactiveJdbcTemplate(dataSource, scheduler);
+    }
+
+    /**
+     * Release templates and database
+     */
+    @TearDown(Level.Trial)
+    public void close() {
+      executor.shutdownNow();
+      jdbc.execute("SHUTDOWN");
+      dataSource.close();
+    }
+
+  }
+
+  /**
+   * Database filled with customers for queries
+   */
+  @State(Scope.Benchmark)
+  public static class QueryDatabase extends Database {
+
+    /** Number of customers */
+    @Param({"100", "10000"})
+    private int rows;
+
+    /** Subscriber demand pattern */
+    @Param({"UNBOUNDED", "ONE", "BOUNDED"})
+    private Demand demand;
+
+    /**
+     * Create and fill database
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+      open("query");
+      jdbc.batchUpdate(ADD_CUSTOMER, customers(rows), 1000, CUSTOMER_SETTER);
+    }
+
+    /**
+     * Apply demand pattern to query result
+     *
+     * @param <T> the result type
+     *
+     * @param result the query result
+     *
+     * @return the result requested with the demand pattern
+     */
+    private <T> Flux<T> request(final Flux<T> result) {
+      switch(demand) {
+        case ONE:
+          return result.limitRate(1);
+        case BOUNDED:
+          return result.limitRate(BOUNDED_DEMAND);
+        default:
+          return result;
+      }
+    }
+
+  }
+
+  /**
+   * Empty database and customers to insert
+   */
+  @State(Scope.Benchmark)
+  public static class BatchDatabase extends Database {
+
+    /** Number of customers */
+    @Param({"100", "10000"})
+    private int rows;
+
+    /** Batch size */
+    @Param({"50", "500"})
+    private int batchSize;
+
+    /** Customers to insert */
+    private List<CustomerDTO> customers;
+
+    /**
+     * Create database and customers
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+      open("batch");
+      customers = customers(rows);
+    }
+
+    /**
+     * Remove inserted customers.<br>
+     * Done before each invocation so that every insertion starts with an
+     * empty table (an invocation inserts at least 100 rows, which keeps setup
+     * timestamp overhead negligible).
+     */
+    @Setup(Level.Invocation)
+    public void clean() {
+      jdbc.update(REQ_DELETE_ALL);
+    }
+
+  }
+  // States -
+
+
+  // Methods +
+  /**
+   * Build customers
+   *
+   * @param nb the number of customers
+   *
+   * @return the customers
+   */
+  private static List<CustomerDTO> customers(final int nb) {
+    final List<CustomerDTO> customers = new ArrayList<>(nb);
+    for(int i = 0 ; i < nb ; ++i) {
+      final CustomerDTO dto = new CustomerDTO(new UUID(0L, i), "First" + i, "Last" + i);
+      dto.setBirthDate(new java.util.Date(i * 86_400_000L));
+      dto.setEmail("customer" + i + "@yopmail.com");
+      customers.add(dto);
+    }
+    return customers;
+  }
+
+  /**
+   * List customers with {@link JdbcTemplate}
+   *
+   * @param db the database
+   *
+   * @return the customers
+   */
+  @Benchmark
+  public List<CustomerDTO> jdbcQuery(final QueryDatabase db) {
+    return db.jdbc.query(REQ_LIST_ALL, CUSTOMER_MAPPER);
+  }
+
+  /**
+   * Stream customers with {@link ReactiveJdbcTemplate} on benchmark thread
+   *
+   * @param db the database
+   * @param bh the black hole
+   *
+   * @return the number of customers
+   */
+  @Benchmark
+  public Long queryForFlux(final QueryDatabase db, final Blackhole bh) {
+    return db.request(db.reactive.queryForFlux(REQ_LIST_ALL, CUSTOMER_MAPPER)).doOnNext(bh::consume).count().block();
+  }
+
+  /**
+   * Stream customers with {@link ReactiveJdbcTemplate} on JDBC scheduler
+   *
+   * @param db the database
+   * @param bh the black hole
+   *
+   * @return the number of customers
+   */
+  @Benchmark
+  public Long queryForFluxScheduled(final QueryDatabase db, final Blackhole bh) {
+    return db.request(db.scheduled.queryForFlux(REQ_LIST_ALL, CUSTOMER_MAPPER)).doOnNext(bh::consume).count().block();
+  }
+
+  /**
+   * Insert customers with {@link JdbcTemplate}
+   *
+   * @param db the database
+   *
+   * @return the number of rows affected by each item of each batch
+   */
+  @Benchmark
+  public int[][] jdbcBatchUpdate(final BatchDatabase db) {
+    return db.jdbc.batchUpdate(ADD_CUSTOMER, db.customers, db.batchSize, CUSTOMER_SETTER);
+  }
+
+  /**
+   * Insert customers with {@link ReactiveJdbcTemplate} demand-driven batch update
+   *
+   * @param db the database
+   *
+   * @return the number of inserted customers
+   */
+  @Benchmark
+  public Integer batchUpdateForMono(final BatchDatabase db) {
+    return db.reactive.batchUpdateForMono(ADD_CUSTOMER, Flux.fromIterable(db.customers), db.batchSize, CUSTOMER_SETTER).block();
+  }
+
+  /**
+   * Insert customers with {@link ReactiveJdbcTemplate} demand-driven batch update on JDBC scheduler
+   *
+   * @param db the database
+   *
+   * @return the number of inserted customers
+   */
+  @Benchmark
+  public Integer batchUpdateForMonoScheduled(final BatchDatabase db) {
+    return db.scheduled.batchUpdateForMono(ADD_CUSTOMER, Flux.fromIterable(db.customers), db.batchSize, CUSTOMER_SETTER).block();
+  }
+
+  /**
+   * Run benchmark with GC profiler
+   *
+   * @param args unused
+   *
+   * @throws RunnerException benchmark error
+   */
+  public static void main(final String[] args) throws RunnerException {
+    final Options opts = new OptionsBuilder()
+        .include(ReactiveJdbcTemplateBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build();
+    new Runner(opts).run();
+  }
+  // Methods -
+
+}
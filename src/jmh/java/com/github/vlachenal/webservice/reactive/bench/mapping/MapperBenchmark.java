@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.PhoneDTO;
+import com.github.vlachenal.webservice.reactive.bench.mapping.manual.CustomerBridge;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Mapper;
+
+
+/**
+ * Mapping strategies benchmark: DTO to REST and REST to DTO customer
+ * conversions over customers with 0 to 20 phones and 1 to 6 address lines.<br>
+ * Strategies are the application ones (Dozer configuration, MapStruct
+ * mappers ...) created by a Spring context limited to mapping package.
+ * Run {@link #main(String[])} to get throughput, average time and allocation
+ * rate (GC profiler).
+ *
+ * @author Vincent Lachenal
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MapperBenchmark {
+
+  // Attributes +
+  /** Number of distinct customers (power of 2) */
+  private static final int NB_CUSTOMERS = 1 << 10;
+
+  /** Random seed: every strategy maps the same customers */
+  private static final long SEED = 42L;
+
+  /** Benchmarked mapper */
+  @Param({"MANUAL", "MAPSTRUCT", "DOZER", "BYTECODE"})
+  private Mapper mapper;
+
+  /** Spring context */
+  private AnnotationConfigApplicationContext ctx;
+
+  /** Mapping strategy */
+  private MapperStrategy strategy;
+
+  /** Customer DTOs */
+  private CustomerDTO[] dtos;
+
+  /** REST customers */
+  private Customer[] customers;
+
+  /** Current customer index */
+  private int idx = 0;
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Build random customer DTO
+   *
+   * @param rand the random generator
+   * @param id the customer identifier
+   *
+   * @return the customer
+   */
+  private static CustomerDTO customer(final Random rand, final int id) {
+    final CustomerDTO dto = new CustomerDTO();
+    dto.setId(Integer.toString(id));
+    dto.setFirstName("First" + id);
+    dto.setLastName("Last" + id);
+    dto.setEmail("customer" + id + "@yopmail.com");
+    dto.setBirthDate(new Date(rand.nextInt(Integer.MAX_VALUE) * 1000L));
+    final String[] lines = new String[1 + rand.nextInt(6)];
+    for(int i = 0 ; i < lines.length ; ++i) {
+      lines[i] = (i + 1) + " rue de Rivoli";
+    }
+    dto.setAddress(new AddressDTO(Integer.toString(10000 + rand.nextInt(90000)), "Paris", "France", lines));
+    final int nbPhones = rand.nextInt(21);
+    final List<PhoneDTO> phones = new ArrayList<>(nbPhones);
+    for(int i = 0 ; i < nbPhones ; ++i) {
+      phones.add(new PhoneDTO((short)(1 + rand.nextInt(2)), "+336" + (10000000 + rand.nextInt(90000000))));
+    }
+    dto.setPhones(phones);
+    return dto;
+  }
+
+  /**
+   * Create mapping strategies and customers
+   */
+  @Setup(Level.Trial)
+  public void setup() {
+    ctx = new AnnotationConfigApplicationContext(MapperBenchmark.class.getPackage().getName());
+    strategy = ctx.getBean(MapperStrategies.class).get(mapper);
+    final Random rand = new Random(SEED);
+    dtos = new CustomerDTO[NB_CUSTOMERS];
+    customers = new Customer[NB_CUSTOMERS];
+    for(int i = 0 ; i < NB_CUSTOMERS ; ++i) {
+      dtos[i] = customer(rand, i);
+      customers[i] = CustomerBridge.toRest(dtos[i]);
+    }
+  }
+
+  /**
+   * Close Spring context
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    ctx.close();
+  }
+
+  /**
+   * Map DTO to REST
+   *
+   * @return the REST customer
+   */
+  @Benchmark
+  public Customer toRest() {
+    idx = (idx + 1) & (NB_CUSTOMERS - 1);
+    return strategy.toRest(dtos[idx]);
+  }
+
+  /**
+   * Map REST to DTO
+   *
+   * @return the customer DTO
+   */
+  @Benchmark
+  public CustomerDTO fromRest() {
+    idx = (idx + 1) & (NB_CUSTOMERS - 1);
+    return strategy.fromRest(customers[idx]);
+  }
+
+  /**
+   * Run benchmark with GC profiler
+   *
+   * @param args unused
+   *
+   * @throws RunnerException benchmark error
+   */
+  public static void main(final String[] args) throws RunnerException {
+    final Options opts = new OptionsBuilder()
+        .include(MapperBenchmark.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .build();
+    new Runner(opts).run();
+  }
+  // Methods -
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.blocking;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+
+/**
+ * Blocking stack configuration
+ *
+ * @author Vincent Lachenal
+ */
+@Configuration
+public class BlockingConfig {
+
+  // Methods +
+  /**
+   * Provide blocking request executor.<br>
+   * Each request holds one thread from business call to response, like in a
+   * servlet container: the pool size has the same role as the servlet
+   * container maximum number of threads.
+   *
+   * @param threads the maximum number of requests processed at once
+   *
+   * @return the executor
+   */
+  @Bean(name="blocking.executor", destroyMethod="shutdown")
+  public ExecutorService provideBlockingExecutor(@Value("${blocking.threads:200}") final int threads) {
+    return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("blocking-"));
+  }
+
+  /**
+   * Provide blocking request scheduler
+   *
+   * @param executor the blocking request executor
+   *
+   * @return the scheduler
+   */
+  @Bean(name="blocking.scheduler")
+  public Scheduler provideBlockingScheduler(@Qualifier("blocking.executor") final ExecutorService executor) {
+    return Schedulers.fromExecutorService(executor);
+  }
+  // Methods -
+
+}
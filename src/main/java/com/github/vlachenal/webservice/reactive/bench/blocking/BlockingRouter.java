@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.blocking;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.github.vlachenal.webservice.reactive.bench.blocking.api.BlockingCustomerHandler;
+import com.github.vlachenal.webservice.reactive.bench.blocking.api.BlockingStatisticsHandler;
+
+
+/**
+ * RESTful blocking API router.<br>
+ * Routes are the same as the webflux ones with {@code /blocking} prefix. They
+ * are served by a fixed pool of platform threads: this is the
+ * thread-per-request baseline, not a virtual threads one (see
+ * {@link VirtualThreadConfig} for {@code /vthread} routes).
+ *
+ * @author Vincent Lachenal
+ */
+@Configuration
+public class BlockingRouter {
+
+  // Methods +
+  /**
+   * Build blocking customer resource routes
+   *
+   * @param prefix the routes prefix
+   * @param handler the handler
+   *
+   * @return the routes
+   */
+  static RouterFunction<ServerResponse> customerRoutes(final String prefix, final BlockingCustomerHandler handler) {
+    return RouterFunctions.route(RequestPredicates.GET(prefix + "/customer/{id}")
+                                 .and(RequestPredicates.accept(MediaType.APPLICATION_JSON_UTF8)),
+                                 handler::get)
+        .andNest(RequestPredicates.path(prefix + "/customer"),
+                 RouterFunctions.route(RequestPredicates.method(HttpMethod.GET)
+                                       .and(RequestPredicates.accept(MediaType.APPLICATION_JSON_UTF8)),
+                                       handler::list)
+                 .andRoute(RequestPredicates.method(HttpMethod.POST)
+                           .and(RequestPredicates.contentType(MediaType.APPLICATION_JSON_UTF8))
+                           .and(RequestPredicates.accept(MediaType.TEXT_PLAIN)),
+                           handler::create)
+                 .andRoute(RequestPredicates.method(HttpMethod.DELETE), handler::delete));
+  }
+
+  /**
+   * Build blocking statistics resource routes
+   *
+   * @param prefix the routes prefix
+   * @param handler the handler
+   *
+   * @return the routes
+   */
+  static RouterFunction<ServerResponse> statisticsRoutes(final String prefix, final BlockingStatisticsHandler handler) {
+    return RouterFunctions.nest(RequestPredicates.path(prefix + "/stats"),
+                                RouterFunctions.route(RequestPredicates.method(HttpMethod.POST)
+                                                      .and(RequestPredicates.contentType(MediaType.APPLICATION_JSON_UTF8))
+                                                      .and(RequestPredicates.accept(MediaType.TEXT_PLAIN)),
+                                                      handler::create)
+                                .andRoute(RequestPredicates.method(HttpMethod.DELETE), handler::purge))
+        .andRoute(RequestPredicates.POST(prefix + "/stats/{id}/calls")
+                  .and(RequestPredicates.contentType(MediaType.APPLICATION_JSON_UTF8).or(RequestPredicates.contentType(MediaType.APPLICATION_STREAM_JSON)))
+                  .and(RequestPredicates.accept(MediaType.TEXT_PLAIN)),
+                  handler::addCalls);
+  }
+
+  /**
+   * Route requests to blocking customer resource handler
+   *
+   * @param handler the handler
+   *
+   * @return the route configuration
+   */
+  @Bean
+  public RouterFunction<ServerResponse> routeBlockingCustomer(final BlockingCustomerHandler handler) {
+    return customerRoutes("/blocking", handler);
+  }
+
+  /**
+   * Route requests to blocking statistics resource handler
+   *
+   * @param handler the handler
+   *
+   * @return the route configuration
+   */
+  @Bean
+  public RouterFunction<ServerResponse> routeBlockingStatistics(final BlockingStatisticsHandler handler) {
+    return statisticsRoutes("/blocking", handler);
+  }
+  // Methods -
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.blocking;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.github.vlachenal.webservice.reactive.bench.blocking.api.BlockingCustomerHandler;
+import com.github.vlachenal.webservice.reactive.bench.blocking.api.BlockingStatisticsHandler;
+import com.github.vlachenal.webservice.reactive.bench.business.CustomerBusiness;
+import com.github.vlachenal.webservice.reactive.bench.business.StatisticsBusiness;
+import com.github.vlachenal.webservice.reactive.bench.cache.LatencyHistograms;
+import com.github.vlachenal.webservice.reactive.bench.cache.StatisticsCache;
+import com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategies;
+import com.github.vlachenal.webservice.reactive.bench.mapping.mapstruct.MapStructMappers;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+
+/**
+ * Virtual threads blocking stack configuration ({@code vthread} profile).<br>
+ * {@code /vthread} routes mirror the {@code /blocking} ones but each request
+ * runs on its own virtual thread instead of a thread of the fixed platform
+ * threads pool. Calls are registered with {@code vthread} protocol.<br>
+ * Project is built for Java 11: virtual threads are created through
+ * reflection and the server has to run on Java 21 or later.
+ *
+ * @author Vincent Lachenal
+ */
+@Configuration
+@Profile("vthread")
+public class VirtualThreadConfig {
+
+  // Attributes +
+  /** Virtual threads calls protocol */
+  public static final String PROTOCOL = "vthread";
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Create a virtual thread per task executor ({@code Thread.ofVirtual()}
+   * thread factory)
+   *
+   * @return the executor
+   *
+   * @throws IllegalStateException virtual threads are not available (Java 20 or earlier)
+   */
+  public static ExecutorService newVirtualThreadExecutor() {
+    try {
+      final Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      final Object builder = builderType.getMethod("name", String.class, long.class)
+          .invoke(Thread.class.getMethod("ofVirtual").invoke(null), "vthread-", 0L);
+      final ThreadFactory factory = (ThreadFactory)builderType.getMethod("factory").invoke(builder);
+      return (ExecutorService)Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class).invoke(null, factory);
+    } catch(final ReflectiveOperationException e) {
+      throw new IllegalStateException("Virtual threads need Java 21 or later (running on " + Runtime.version() + ")", e);
+    }
+  }
+
+  /**
+   * Provide virtual threads request executor
+   *
+   * @return the executor
+   */
+  @Bean(name="vthread.executor", destroyMethod="shutdown")
+  public ExecutorService provideVirtualThreadExecutor() {
+    return newVirtualThreadExecutor();
+  }
+
+  /**
+   * Provide virtual threads request scheduler
+   *
+   * @param executor the virtual threads request executor
+   *
+   * @return the scheduler
+   */
+  @Bean(name="vthread.scheduler")
+  public Scheduler provideVirtualThreadScheduler(@Qualifier("vthread.executor") final ExecutorService executor) {
+    return Schedulers.fromExecutorService(executor);
+  }
+
+  /**
+   * Route {@code /vthread} requests to blocking handlers run on virtual threads
+   *
+   * @param customers the customer business
+   * @param statistics the statistics business
+   * @param mappers the mapping strategies
+   * @param mapstruct the MapStruct mappers
+   * @param stats the statistics cache
+   * @param histograms the latency histograms
+   * @param scheduler the virtual threads request scheduler
+   *
+   * @return the route configuration
+   */
+  @Bean
+  public RouterFunction<ServerResponse> routeVirtualThread(final CustomerBusiness customers,
+                                                           final StatisticsBusiness statistics,
+                                                           final MapperStrategies mappers,
+                                                           final MapStructMappers mapstruct,
+                                                           final StatisticsCache stats,
+                                                           final LatencyHistograms histograms,
+                                                           @Qualifier("vthread.scheduler") final Scheduler scheduler) {
+    return BlockingRouter.customerRoutes("/vthread", new BlockingCustomerHandler(customers, mappers, stats, histograms, scheduler, PROTOCOL))
+        .and(BlockingRouter.statisticsRoutes("/vthread", new BlockingStatisticsHandler(statistics, mapstruct, stats, scheduler)));
+  }
+  // Methods -
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.blocking.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.github.vlachenal.webservice.reactive.bench.business.CustomerBusiness;
+import com.github.vlachenal.webservice.reactive.bench.cache.LatencyHistograms;
+import com.github.vlachenal.webservice.reactive.bench.cache.StatisticsCache;
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.errors.InvalidParametersException;
+import com.github.vlachenal.webservice.reactive.bench.errors.NotFoundException;
+import com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategies;
+import com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.webflux.api.CustomerHandler;
+import com.github.vlachenal.webservice.reactive.bench.webflux.api.TimedServerResponse;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+
+/**
+ * Blocking customer service handler.<br>
+ * Business and JDBC calls are plain blocking calls run on one thread of the
+ * blocking scheduler per request (thread-per-request model). Calls are
+ * registered with {@code blocking} protocol on the platform threads pool, and
+ * with {@code vthread} protocol on virtual threads.
+ *
+ * @author Vincent Lachenal
+ */
+@Component
+public class BlockingCustomerHandler {
+
+  // Attributes +
+  /** Platform threads calls protocol */
+  public static final String PROTOCOL = "blocking";
+
+  /** Customer business */
+  private final CustomerBusiness business;
+
+  /** Mapping strategies */
+  private final MapperStrategies mappers;
+
+  /** Statistics cache */
+  private final StatisticsCache stats;
+
+  /** Latency histograms */
+  private final LatencyHistograms histograms;
+
+  /** Blocking request scheduler */
+  private final Scheduler scheduler;
+
+  /** Calls protocol */
+  private final String protocol;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link BlockingCustomerHandler} constructor
+   *
+   * @param business the customer business to use
+   * @param mappers the mapping strategies to use
+   * @param stats the statistics cache to use
+   * @param histograms the latency histograms to use
+   * @param scheduler the blocking request scheduler to use
+   */
+  @Autowired
+  public BlockingCustomerHandler(final CustomerBusiness business,
+                                 final MapperStrategies mappers,
+                                 final StatisticsCache stats,
+                                 final LatencyHistograms histograms,
+                                 @Qualifier("blocking.scheduler") final Scheduler scheduler) {
+    this(business, mappers, stats, histograms, scheduler, PROTOCOL);
+  }
+
+  /**
+   * {@link BlockingCustomerHandler} constructor
+   *
+   * @param business the customer business to use
+   * @param mappers the mapping strategies to use
+   * @param stats the statistics cache to use
+   * @param histograms the latency histograms to use
+   * @param scheduler the blocking request scheduler to use
+   * @param protocol the calls protocol
+   */
+  public BlockingCustomerHandler(final CustomerBusiness business,
+                                 final MapperStrategies mappers,
+                                 final StatisticsCache stats,
+                                 final LatencyHistograms histograms,
+                                 final Scheduler scheduler,
+                                 final String protocol) {
+    this.business = business;
+    this.mappers = mappers;
+    this.stats = stats;
+    this.histograms = histograms;
+    this.scheduler = scheduler;
+    this.protocol = protocol;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Run blocking call on blocking scheduler
+   *
+   * @param call the blocking call
+   *
+   * @return the call result
+   */
+  private <T> Mono<T> blocking(final Callable<T> call) {
+    return Mono.fromCallable(call).subscribeOn(scheduler);
+  }
+
+  /**
+   * Record call latency and register call in cache if request sequence is valid.<br>
+   * Call is registered once response body has been written (see {@link TimedServerResponse}).
+   *
+   * @param seq the request sequence
+   * @param method the method
+   * @param mapper the mapping strategy
+   * @param serverStart the server start in ns
+   */
+  private void registerCall(final int seq, final String method, final MapperStrategy mapper, final long serverStart) {
+    final long serverEnd = System.nanoTime();
+    histograms.record(protocol, method, mapper.getName(), serverEnd - serverStart);
+    if(seq != -1) {
+      stats.register(protocol, method, seq, serverStart, serverEnd);
+    }
+  }
+
+  /**
+   * Get customer
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> get(final ServerRequest req) {
+    final int seq = CustomerHandler.parseSeq(req.headers().header("request_seq"));
+    final long start = System.nanoTime();
+    final MapperStrategy mapper = mappers.resolve(req.headers().header("mapper"));
+    final String id = req.pathVariable("id");
+    final Mono<ServerResponse> res = blocking(() -> mapper.toRest(business.getDetailsBlocking(id)))
+        .flatMap(cust -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(BodyInserters.fromObject(cust)))
+        .onErrorResume(InvalidParametersException.class, e -> ServerResponse.badRequest().body(BodyInserters.fromObject(e.getMessage())))
+        .onErrorResume(NotFoundException.class, e -> ServerResponse.notFound().build());
+    return TimedServerResponse.timed(res, () -> registerCall(seq, "get", mapper, start));
+  }
+
+  /**
+   * Create customer
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> create(final ServerRequest req) {
+    final int seq = CustomerHandler.parseSeq(req.headers().header("request_seq"));
+    final long start = System.nanoTime();
+    final UUID uuid = UUID.randomUUID();
+    final MapperStrategy mapper = mappers.resolve(req.headers().header("mapper"));
+    final Mono<ServerResponse> res = req.bodyToMono(Customer.class)
+        .flatMap(cust -> blocking(() -> business.createBlocking(mapper.fromRest(cust), uuid)))
+        .flatMap(id -> ServerResponse.created(req.uriBuilder().path("/{id}").build(id)).body(BodyInserters.fromObject(id)))
+        .onErrorResume(InvalidParametersException.class, e -> ServerResponse.badRequest().body(BodyInserters.fromObject(e.getMessage())));
+    return TimedServerResponse.timed(res, () -> registerCall(seq, "create", mapper, start));
+  }
+
+  /**
+   * List customers
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> list(final ServerRequest req) {
+    final int seq = CustomerHandler.parseSeq(req.headers().header("request_seq"));
+    final long start = System.nanoTime();
+    final MapperStrategy mapper = mappers.resolve(req.headers().header("mapper"));
+    final Mono<ServerResponse> res = blocking(() -> {
+      final List<CustomerDTO> dtos = business.listAllBlocking();
+      final List<Customer> customers = new ArrayList<>(dtos.size());
+      for(final CustomerDTO dto : dtos) {
+        customers.add(mapper.toRest(dto));
+      }
+      return customers;
+    }).flatMap(customers -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(BodyInserters.fromObject(customers)));
+    return TimedServerResponse.timed(res, () -> registerCall(seq, "list", mapper, start));
+  }
+
+  /**
+   * Delete all customers
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> delete(final ServerRequest req) {
+    return blocking(() -> {
+      business.deleteAllBlocking();
+      return Boolean.TRUE;
+    }).then(ServerResponse.ok().build());
+  }
+  // Methods -
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.blocking.api;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.github.vlachenal.webservice.reactive.bench.business.StatisticsBusiness;
+import com.github.vlachenal.webservice.reactive.bench.cache.StatisticsCache;
+import com.github.vlachenal.webservice.reactive.bench.errors.InvalidParametersException;
+import com.github.vlachenal.webservice.reactive.bench.mapping.mapstruct.MapStructMappers;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.ClientCall;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.TestSuite;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+
+/**
+ * Blocking statistics service handler.<br>
+ * Request bodies are fully read, then test suites and calls are saved with
+ * plain blocking JDBC calls on blocking scheduler.
+ *
+ * @author Vincent Lachenal
+ */
+@Component
+public class BlockingStatisticsHandler {
+
+  // Attributes +
+  /** Statistics business */
+  private final StatisticsBusiness business;
+
+  /** MapStruct mappers */
+  private final MapStructMappers mapstruct;
+
+  /** Statistics cache */
+  private final StatisticsCache stats;
+
+  /** Blocking request scheduler */
+  private final Scheduler scheduler;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link BlockingStatisticsHandler} constructor
+   *
+   * @param business the statistics business to use
+   * @param mapstruct the MapStruct mappers to use
+   * @param stats the statistics cache to use
+   * @param scheduler the blocking request scheduler to use
+   */
+  public BlockingStatisticsHandler(final StatisticsBusiness business,
+                                   final MapStructMappers mapstruct,
+                                   final StatisticsCache stats,
+                                   @Qualifier("blocking.scheduler") final Scheduler scheduler) {
+    this.business = business;
+    this.mapstruct = mapstruct;
+    this.stats = stats;
+    this.scheduler = scheduler;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Create a new test suite
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> create(final ServerRequest req) {
+    final UUID uuid = UUID.randomUUID();
+    return req.bodyToMono(TestSuite.class)
+        .publishOn(scheduler)
+        .map(suite -> business.consolidateBlocking(mapstruct.suite().fromRest(suite), uuid))
+        .flatMap(id -> ServerResponse.created(req.uriBuilder().path("/{id}").build(id)).body(BodyInserters.fromObject(id)))
+        .onErrorResume(InvalidParametersException.class, e -> ServerResponse.badRequest().body(BodyInserters.fromObject(e.getMessage())));
+  }
+
+  /**
+   * Add calls to test suite
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> addCalls(final ServerRequest req) {
+    final String id = req.pathVariable("id");
+    return req.bodyToFlux(ClientCall.class).map(mapstruct.call()::fromRest).collectList()
+        .publishOn(scheduler)
+        .doOnNext(calls -> business.registerCallsBlocking(id, calls))
+        .then(ServerResponse.ok().build())
+        .onErrorResume(InvalidParametersException.class, e -> ServerResponse.badRequest().body(BodyInserters.fromObject(e.getMessage())));
+  }
+
+  /**
+   * Purge statistics cache
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> purge(final ServerRequest req) {
+    stats.clean();
+    return ServerResponse.ok().build();
+  }
+  // Methods -
+
+}
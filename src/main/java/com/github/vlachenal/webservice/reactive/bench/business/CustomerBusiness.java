@@ -6,11 +6,14 @@
  */
 package com.github.vlachenal.webservice.reactive.bench.business;
 
+import java.util.List;
 import java.util.UUID;
 
 import org.springframework.stereotype.Component;
 
 import com.github.vlachenal.webservice.reactive.bench.dao.CustomerDAO;
+import com.github.vlachenal.webservice.reactive.bench.dao.Persistence;
+import com.github.vlachenal.webservice.reactive.bench.dao.r2dbc.R2dbcCustomerDAO;
 import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
 import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
 import com.github.vlachenal.webservice.reactive.bench.errors.InvalidParametersException;
@@ -22,7 +25,7 @@ import reactor.core.publisher.Mono;
 
 /**
  * Customer business component.<br>
- * Check business rules and call DAO.
+ * Check business rules and call DAO of requested {@link Persistence}.
  *
  * @author Vincent Lachenal
  */
@@ -32,6 +35,9 @@ public class CustomerBusiness extends AbstractBusiness {
   // Attributes +
   /** Customer DAO */
   private final CustomerDAO dao;
+
+  /** R2DBC customer DAO */
+  private final R2dbcCustomerDAO r2dbc;
   // Attributes -
 
 
@@ -40,9 +46,11 @@ public class CustomerBusiness extends AbstractBusiness {
    * {@link CustomerBusiness} constructor
    *
    * @param dao the customer DAO to use
+   * @param r2dbc the R2DBC customer DAO to use
    */
-  public CustomerBusiness(final CustomerDAO dao) {
+  public CustomerBusiness(final CustomerDAO dao, final R2dbcCustomerDAO r2dbc) {
     this.dao = dao;
+    this.r2dbc = r2dbc;
   }
   // Constructors -
 
@@ -51,30 +59,76 @@ public class CustomerBusiness extends AbstractBusiness {
   /**
    * List all customers
    *
+   * @param persistence the persistence to use
+   *
    * @return the customers
    */
-  public Flux<CustomerDTO> listAll() {
-    return dao.listAll();
+  public Flux<CustomerDTO> listAll(final Persistence persistence) {
+    return (persistence == Persistence.R2DBC) ? r2dbc.listAll() : dao.listAll();
   }
 
   /**
-   * Get customer's details
+   * List all customers in caller thread
+   *
+   * @return the customers
+   */
+  public List<CustomerDTO> listAllBlocking() {
+    return dao.listAllBlocking();
+  }
+
+  /**
+   * Parse customer identifier
    *
    * @param id the customer's identifier
    *
-   * @return the customer's details
+   * @return the customer's UUID
    *
-   * @throws InvalidParametersException invalid or missing parameter
-   * @throws NotFoundException customer has not been found
+   * @throws InvalidParametersException if identifier is invalid
    */
-  public CustomerDTO getDetails(final String id) throws InvalidParametersException, NotFoundException {
-    UUID custId = null;
+  private static UUID parseId(final String id) throws InvalidParametersException {
+    if(id == null) {
+      throw new InvalidParametersException("Customer identifier is null");
+    }
     try {
-      custId = UUID.fromString(id);
+      return UUID.fromString(id);
     } catch(final IllegalArgumentException e) {
       throw new InvalidParametersException(id + " is not an UUID");
     }
-    return dao.getDetails(custId).orElseThrow(() -> new NotFoundException("Customer " + id + " does not exist"));
+  }
+
+  /**
+   * Get customer's details
+   *
+   * @param id the customer's identifier
+   * @param persistence the persistence to use
+   *
+   * @return the customer's details, on error with {@link InvalidParametersException}
+   *         if identifier is invalid or with {@link NotFoundException} if customer
+   *         has not been found
+   */
+  public Mono<CustomerDTO> getDetails(final String id, final Persistence persistence) {
+    return Mono.defer(() -> {
+      final UUID uuid = parseId(id);
+      return (persistence == Persistence.R2DBC) ? r2dbc.getDetails(uuid) : dao.getDetails(uuid);
+    }).switchIfEmpty(Mono.error(() -> new NotFoundException("Customer " + id + " does not exist")));
+  }
+
+  /**
+   * Get customer's details in caller thread
+   *
+   * @param id the customer's identifier
+   *
+   * @return the customer's details
+   *
+   * @throws InvalidParametersException if identifier is invalid
+   * @throws NotFoundException if customer has not been found
+   */
+  public CustomerDTO getDetailsBlocking(final String id) throws InvalidParametersException, NotFoundException {
+    final CustomerDTO customer = dao.getDetailsBlocking(parseId(id));
+    if(customer == null) {
+      throw new NotFoundException("Customer " + id + " does not exist");
+    }
+    return customer;
   }
 
   /**
@@ -82,31 +136,86 @@ public class CustomerBusiness extends AbstractBusiness {
    *
    * @param customer the customer to create
    * @param uuid the future UUID identifier
+   * @param persistence the persistence to use
    *
    * @return the new customer's identifier
    *
    * @throws InvalidParametersException missing or invalid parameters
    */
-  public Mono<String> create(final Mono<CustomerDTO> cust, final UUID uuid) {
+  public Mono<String> create(final Mono<CustomerDTO> cust, final UUID uuid, final Persistence persistence) {
     return cust.flatMap(customer -> {
-      // Customer structure checks +
-      checkParameters("Customer is null", customer);
-      checkParameters("Customer first_name, last_name and brith_date has to be set", customer.getFirstName(), customer.getLastName(), customer.getBirthDate());
-      // Customer structure checks -
-      // Address structure checks +
-      final AddressDTO addr = customer.getAddress();
-      if(addr != null) {
-        checkParameters("Address lines, zip_code, city and country has to be set", addr.getLines(), addr.getZipCode(), addr.getCity(),addr.getCountry());
-      }
-      // Address structure checks -
-      return Mono.just(dao.create(customer, uuid));
+      checkCustomer(customer);
+      return (persistence == Persistence.R2DBC) ? r2dbc.create(customer, uuid) : dao.create(customer, uuid);
     });
   }
 
+  /**
+   * Create new customer in caller thread
+   *
+   * @param customer the customer to create
+   * @param uuid the future UUID identifier
+   *
+   * @return the new customer's identifier
+   *
+   * @throws InvalidParametersException missing or invalid parameters
+   */
+  public String createBlocking(final CustomerDTO customer, final UUID uuid) throws InvalidParametersException {
+    checkCustomer(customer);
+    return dao.createBlocking(customer, uuid);
+  }
+
+  /**
+   * Create new customers
+   *
+   * @param customers the customers to create
+   * @param persistence the persistence to use
+   *
+   * @return the new customers' identifiers, on error with {@link InvalidParametersException} on first invalid customer
+   */
+  public Flux<String> create(final Flux<CustomerDTO> customers, final Persistence persistence) {
+    final Flux<CustomerDTO> checked = customers.map(customer -> {
+      checkCustomer(customer);
+      customer.setId(UUID.randomUUID().toString());
+      return customer;
+    });
+    return (persistence == Persistence.R2DBC) ? r2dbc.create(checked) : dao.create(checked);
+  }
+
+  /**
+   * Check customer structure
+   *
+   * @param customer the customer to check
+   *
+   * @throws InvalidParametersException missing or invalid parameters
+   */
+  private void checkCustomer(final CustomerDTO customer) throws InvalidParametersException {
+    // Customer structure checks +
+    checkParameters("Customer is null", customer);
+    checkParameters("Customer first_name, last_name and brith_date has to be set", customer.getFirstName(), customer.getLastName(), customer.getBirthDate());
+    // Customer structure checks -
+    // Address structure checks +
+    final AddressDTO addr = customer.getAddress();
+    if(addr != null) {
+      checkParameters("Address lines, zip_code, city and country has to be set", addr.getLines(), addr.getZipCode(), addr.getCity(),addr.getCountry());
+    }
+    // Address structure checks -
+  }
+
   /**
    * Delete all customers
+   *
+   * @param persistence the persistence to use
+   *
+   * @return the completion signal
+   */
+  public Mono<Void> deleteAll(final Persistence persistence) {
+    return (persistence == Persistence.R2DBC) ? r2dbc.deleteAll() : Mono.fromRunnable(dao::deleteAll);
+  }
+
+  /**
+   * Delete all customers in caller thread
    */
-  public void deleteAll() {
+  public void deleteAllBlocking() {
     dao.deleteAll();
   }
   // Methods -
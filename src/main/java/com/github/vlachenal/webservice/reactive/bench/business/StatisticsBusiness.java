@@ -6,20 +6,34 @@
  */
 package com.github.vlachenal.webservice.reactive.bench.business;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
+import org.HdrHistogram.Histogram;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import com.github.vlachenal.webservice.reactive.bench.cache.LatencyHistograms;
 import com.github.vlachenal.webservice.reactive.bench.cache.StatisticsCache;
+import com.github.vlachenal.webservice.reactive.bench.dao.Persistence;
 import com.github.vlachenal.webservice.reactive.bench.dao.StatisticsDAO;
+import com.github.vlachenal.webservice.reactive.bench.dao.r2dbc.R2dbcStatisticsDAO;
 import com.github.vlachenal.webservice.reactive.bench.dto.CallDTO;
 import com.github.vlachenal.webservice.reactive.bench.dto.TestSuiteDTO;
 import com.github.vlachenal.webservice.reactive.bench.errors.InvalidParametersException;
+import com.github.vlachenal.webservice.reactive.bench.errors.NotFoundException;
 
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 
 /**
@@ -43,6 +57,9 @@ public class StatisticsBusiness extends AbstractBusiness {
   /** Statistics DAO */
   private final StatisticsDAO dao;
 
+  /** R2DBC statistics DAO */
+  private final R2dbcStatisticsDAO r2dbc;
+
   /** Statistics cache */
   private final StatisticsCache cache;
   // Attributes -
@@ -53,9 +70,11 @@ public class StatisticsBusiness extends AbstractBusiness {
    * {@link StatisticsBusiness} constructors
    *
    * @param dao the statistics DAO to use
+   * @param r2dbc the R2DBC statistics DAO to use
    */
-  public StatisticsBusiness(final StatisticsDAO dao, final StatisticsCache cache) {
+  public StatisticsBusiness(final StatisticsDAO dao, final R2dbcStatisticsDAO r2dbc, final StatisticsCache cache) {
     this.dao = dao;
+    this.r2dbc = r2dbc;
     this.cache = cache;
   }
   // Constructors -
@@ -67,29 +86,58 @@ public class StatisticsBusiness extends AbstractBusiness {
    *
    * @param suite the test suite to consolidate
    * @param uuid the new test suite identifier
+   * @param persistence the persistence to use
    *
    * @throws InvalidParametersException missing or invalid parameters
    */
-  public Mono<String> consolidate(final Mono<TestSuiteDTO> testSuite, final UUID uuid) throws InvalidParametersException {
-    return testSuite.flatMap(suite -> {
-      checkParameters("Test suite is null", suite);
-      checkParameters("Invalid test suite information", suite.getClientCpu(), suite.getClientMemory(), suite.getClientJvmVersion(), suite.getClientJvmVendor(), suite.getClientOsName(), suite.getClientOsVersion());
+  public Mono<String> consolidate(final Mono<TestSuiteDTO> testSuite, final UUID uuid, final Persistence persistence) throws InvalidParametersException {
+    if(persistence == Persistence.R2DBC) {
+      return testSuite.flatMap(suite -> {
+        prepare(suite);
+        return r2dbc.save(suite, uuid);
+      });
+    }
+    return testSuite.flatMap(suite -> Mono.just(consolidateBlocking(suite, uuid)));
+  }
 
-      if(suite.getCalls() != null) {
-        suite.getCalls().stream().forEach(call -> cache.mergeCall(call));
-      }
+  /**
+   * Consolidate test suite in caller thread
+   *
+   * @param suite the test suite to consolidate
+   * @param uuid the new test suite identifier
+   *
+   * @return the test suite identifier
+   *
+   * @throws InvalidParametersException missing or invalid parameters
+   */
+  public String consolidateBlocking(final TestSuiteDTO suite, final UUID uuid) throws InvalidParametersException {
+    prepare(suite);
+    return dao.save(suite, uuid);
+  }
 
-      // Gather system informations +
-      suite.setServerJvmVersion(System.getProperty("java.version"));
-      suite.setServerJvmVendor(System.getProperty("java.vendor"));
-      suite.setServerOsName(System.getProperty("os.name"));
-      suite.setServerOsVersion(System.getProperty("os.version"));
-      suite.setServerCpu(cpu);
-      suite.setServerMemory(memory);
-      // Gather system informations -
-
-      return Mono.just(dao.save(suite, uuid));
-    });
+  /**
+   * Check test suite, merge its calls with server calls and set server information
+   *
+   * @param suite the test suite to consolidate
+   *
+   * @throws InvalidParametersException missing or invalid parameters
+   */
+  private void prepare(final TestSuiteDTO suite) throws InvalidParametersException {
+    checkParameters("Test suite is null", suite);
+    checkParameters("Invalid test suite information", suite.getClientCpu(), suite.getClientMemory(), suite.getClientJvmVersion(), suite.getClientJvmVendor(), suite.getClientOsName(), suite.getClientOsVersion());
+
+    if(suite.getCalls() != null) {
+      suite.getCalls().stream().forEach(call -> cache.mergeCall(call));
+    }
+
+    // Gather system informations +
+    suite.setServerJvmVersion(System.getProperty("java.version"));
+    suite.setServerJvmVendor(System.getProperty("java.vendor"));
+    suite.setServerOsName(System.getProperty("os.name"));
+    suite.setServerOsVersion(System.getProperty("os.version"));
+    suite.setServerCpu(cpu);
+    suite.setServerMemory(memory);
+    // Gather system informations -
   }
 
   /**
@@ -97,21 +145,275 @@ public class StatisticsBusiness extends AbstractBusiness {
    *
    * @param id the test suite identifier
    * @param calls the calls flux
+   * @param persistence the persistence to use
    *
-   * @throws InvalidParametersException invalid test identifier
+   * @return the completion signal, on error with {@link InvalidParametersException} if test identifier is invalid
    */
-  public Mono<Void> registerCalls(final String id, final Flux<CallDTO> calls) throws InvalidParametersException {
+  public Mono<Void> registerCalls(final String id, final Flux<CallDTO> calls, final Persistence persistence) {
+    UUID uuid = null;
+    try {
+      uuid = UUID.fromString(id);
+    } catch(final IllegalArgumentException e) {
+      return Mono.error(new InvalidParametersException(id + " is not an UUID"));
+    }
+    final Flux<CallDTO> merged = calls.doOnNext(c -> cache.mergeCall(c));
+    return ((persistence == Persistence.R2DBC) ? r2dbc.registerCalls(uuid, merged) : dao.registerCalls(uuid, merged)).then();
+  }
+
+  /**
+   * Register calls in caller thread
+   *
+   * @param id the test suite identifier
+   * @param calls the calls
+   *
+   * @throws InvalidParametersException if test identifier is invalid
+   */
+  public void registerCallsBlocking(final String id, final List<CallDTO> calls) throws InvalidParametersException {
     UUID uuid = null;
     try {
       uuid = UUID.fromString(id);
     } catch(final IllegalArgumentException e) {
       throw new InvalidParametersException(id + " is not an UUID");
     }
-    final CompletableFuture<Void> future = new CompletableFuture<>();
-    final Mono<Void> res = Mono.fromFuture(future);
-    dao.registerCalls(uuid, Flux.from(calls.doOnNext(c -> cache.mergeCall(c)).doFinally(t -> future.complete(null))));
-    return res;
+    calls.forEach(cache::mergeCall);
+    dao.registerCallsBlocking(uuid, calls);
+  }
+
+  /**
+   * Aggregate test suite calls by method.<br>
+   * Calls are streamed from database and aggregated in one pass: memory only
+   * depends on the number of methods, not on the number of calls.
+   *
+   * @param id the test suite identifier
+   * @param persistence the persistence to use
+   *
+   * @return the test suite and its summaries by method, on error with {@link InvalidParametersException} if test
+   *         identifier is invalid or {@link NotFoundException} if test suite does not exist
+   */
+  private Mono<Tuple2<TestSuiteDTO,TreeMap<String,MethodSummary>>> aggregate(final String id, final Persistence persistence) {
+    UUID uuid = null;
+    try {
+      uuid = UUID.fromString(id);
+    } catch(final IllegalArgumentException e) {
+      return Mono.error(new InvalidParametersException(id + " is not an UUID"));
+    }
+    final UUID suite = uuid;
+    final Mono<TestSuiteDTO> found = (persistence == Persistence.R2DBC) ? r2dbc.find(suite) : dao.find(suite);
+    final Flux<CallDTO> calls = (persistence == Persistence.R2DBC) ? r2dbc.streamCalls(suite) : dao.streamCalls(suite);
+    return found
+        .switchIfEmpty(Mono.error(new NotFoundException("Test suite " + id + " does not exist")))
+        .zipWhen(s -> calls.reduceWith(TreeMap<String,MethodSummary>::new, (summaries, call) -> {
+          summaries.computeIfAbsent(call.getMethod(), MethodSummary::new).add(call);
+          return summaries;
+        }));
+  }
+
+  /**
+   * Summarize test suite calls by method
+   *
+   * @param id the test suite identifier
+   * @param persistence the persistence to use
+   *
+   * @return the summaries by method, on error with {@link InvalidParametersException} if test identifier is invalid
+   *         or {@link NotFoundException} if test suite does not exist
+   */
+  public Mono<List<Map<String,Object>>> summarize(final String id, final Persistence persistence) {
+    return aggregate(id, persistence).map(summaries -> summaries.getT2().values().stream().map(MethodSummary::toMap).collect(Collectors.toList()));
+  }
+
+  /**
+   * Compare test suites side by side.<br>
+   * Test suites calls are streamed and aggregated in parallel. For each
+   * method, percentiles deltas (ns) and relative throughput are computed
+   * against the first test suite which has called it.
+   *
+   * @param ids the comma separated test suites identifiers
+   * @param persistence the persistence to use
+   *
+   * @return the comparison report, on error with {@link InvalidParametersException} if a test identifier is invalid
+   *         or {@link NotFoundException} if a test suite does not exist
+   */
+  public Mono<Map<String,Object>> compare(final String ids, final Persistence persistence) {
+    final List<String> suites = (ids == null) ? Collections.emptyList() : Arrays.stream(ids.split(","))
+        .map(String::trim)
+        .filter(id -> !id.isEmpty())
+        .distinct()
+        .collect(Collectors.toList());
+    if(suites.isEmpty()) {
+      return Mono.error(new InvalidParametersException("No test suite to compare"));
+    }
+    return Flux.fromIterable(suites)
+        .flatMapSequential(id -> aggregate(id, persistence), suites.size())
+        .collectList()
+        .map(StatisticsBusiness::compareReport);
+  }
+
+  /**
+   * Build comparison report
+   *
+   * @param summaries the test suites and their summaries by method
+   *
+   * @return the comparison report
+   */
+  private static Map<String,Object> compareReport(final List<Tuple2<TestSuiteDTO,TreeMap<String,MethodSummary>>> summaries) {
+    final List<Map<String,Object>> suites = new ArrayList<>();
+    final TreeSet<String> methods = new TreeSet<>();
+    for(final Tuple2<TestSuiteDTO,TreeMap<String,MethodSummary>> summary : summaries) {
+      final TestSuiteDTO suite = summary.getT1();
+      final Map<String,Object> desc = new LinkedHashMap<>();
+      desc.put("id", suite.getId());
+      desc.put("protocol", suite.getProtocol());
+      desc.put("mapper", suite.getMapper());
+      desc.put("compression", suite.getCompression());
+      desc.put("nbThreads", suite.getNbThreads());
+      desc.put("comment", suite.getComment());
+      suites.add(desc);
+      methods.addAll(summary.getT2().keySet());
+    }
+    final List<Map<String,Object>> byMethod = new ArrayList<>();
+    for(final String method : methods) {
+      MethodSummary baseline = null;
+      final List<Map<String,Object>> rows = new ArrayList<>();
+      for(final Tuple2<TestSuiteDTO,TreeMap<String,MethodSummary>> summary : summaries) {
+        final MethodSummary cur = summary.getT2().get(method);
+        if(cur == null) {
+          continue;
+        }
+        if(baseline == null) {
+          baseline = cur;
+        }
+        final Map<String,Object> row = cur.toMap();
+        row.put("suite", summary.getT1().getId());
+        final double baseThroughput = baseline.throughput();
+        row.put("relativeThroughput", (baseThroughput > 0) ? cur.throughput() / baseThroughput : 0.0);
+        row.put("clientDelta", MethodSummary.delta(cur.client, baseline.client));
+        row.put("serverDelta", MethodSummary.delta(cur.server, baseline.server));
+        rows.add(row);
+      }
+      final Map<String,Object> comparison = new LinkedHashMap<>();
+      comparison.put("method", method);
+      comparison.put("suites", rows);
+      byMethod.add(comparison);
+    }
+    final Map<String,Object> report = new LinkedHashMap<>();
+    report.put("suites", suites);
+    report.put("methods", byMethod);
+    return report;
   }
   // Methods -
 
+
+  // Classes +
+  /**
+   * Method calls summary accumulator
+   *
+   * @author Vincent Lachenal
+   */
+  private static final class MethodSummary {
+
+    // Attributes +
+    /** Method */
+    private final String method;
+
+    /** Client latencies (ns) */
+    private final Histogram client = new Histogram(3);
+
+    /** Server latencies (ns) */
+    private final Histogram server = new Histogram(3);
+
+    /** Number of calls */
+    private long count = 0;
+
+    /** Number of errors */
+    private long errors = 0;
+
+    /** First client start (ns) */
+    private long first = Long.MAX_VALUE;
+
+    /** Last client end (ns) */
+    private long last = Long.MIN_VALUE;
+    // Attributes -
+
+
+    // Constructors +
+    /**
+     * {@link MethodSummary} constructor
+     *
+     * @param method the method
+     */
+    private MethodSummary(final String method) {
+      this.method = method;
+    }
+    // Constructors -
+
+
+    // Methods +
+    /**
+     * Add call to summary
+     *
+     * @param call the call
+     */
+    private void add(final CallDTO call) {
+      ++count;
+      if(!call.isOk()) {
+        ++errors;
+      }
+      if(call.getClientStart() >= 0 && call.getClientEnd() >= call.getClientStart()) {
+        client.recordValue(call.getClientEnd() - call.getClientStart());
+        first = Math.min(first, call.getClientStart());
+        last = Math.max(last, call.getClientEnd());
+      }
+      if(call.getServerStart() >= 0 && call.getServerEnd() >= call.getServerStart()) {
+        server.recordValue(call.getServerEnd() - call.getServerStart());
+      }
+    }
+
+    /**
+     * Compute throughput
+     *
+     * @return the throughput in calls/s over client calls span
+     */
+    private double throughput() {
+      return (last > first) ? count * 1e9 / (last - first) : 0.0;
+    }
+
+    /**
+     * Compute percentiles deltas
+     *
+     * @param cur the histogram to compare
+     * @param base the baseline histogram
+     *
+     * @return the p50, p90, p99, p99.9 and max deltas (ns)
+     */
+    private static Map<String,Object> delta(final Histogram cur, final Histogram base) {
+      final Map<String,Object> delta = new LinkedHashMap<>();
+      delta.put("p50", cur.getValueAtPercentile(50.0) - base.getValueAtPercentile(50.0));
+      delta.put("p90", cur.getValueAtPercentile(90.0) - base.getValueAtPercentile(90.0));
+      delta.put("p99", cur.getValueAtPercentile(99.0) - base.getValueAtPercentile(99.0));
+      delta.put("p99.9", cur.getValueAtPercentile(99.9) - base.getValueAtPercentile(99.9));
+      delta.put("max", cur.getMaxValue() - base.getMaxValue());
+      return delta;
+    }
+
+    /**
+     * Convert summary to map
+     *
+     * @return the summary: count, error rate, throughput (calls/s) and latency percentiles (ns)
+     */
+    private Map<String,Object> toMap() {
+      final Map<String,Object> summary = new LinkedHashMap<>();
+      summary.put("method", method);
+      summary.put("count", count);
+      summary.put("errors", errors);
+      summary.put("errorRate", (double)errors / count);
+      summary.put("throughput", throughput());
+      summary.put("client", LatencyHistograms.percentiles(client));
+      summary.put("server", LatencyHistograms.percentiles(server));
+      return summary;
+    }
+    // Methods -
+
+  }
+  // Classes -
+
 }
@@ -0,0 +1,232 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.cache;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Lock-free open addressing map from packed call key to server timings.<br>
+ * Keys are primitive {@code long} and slots are claimed with a CAS on their
+ * epoch: neither insertion nor lookup allocates. Server end is written last
+ * and publishes the slot timings.<br>
+ * Slots are fixed-width records (epoch, key, server start, server end) stored
+ * in a direct buffer: the table is off-heap and is never scanned by the GC.<br>
+ * A slot is live only if it has been claimed in current epoch: clearing the
+ * map starts a new epoch and does not touch the table. A writer has to be done
+ * with the map before it is cleared (see {@link #clear()}).
+ *
+ * @author Vincent Lachenal
+ */
+final class CallTimingsMap {
+
+  // Attributes +
+  /** Unpublished server end marker */
+  private static final long UNSET = Long.MIN_VALUE;
+
+  /** Record size in bytes */
+  private static final int RECORD = 4 * Long.BYTES;
+
+  /** Epoch offset in record (positive when key is published, negated while slot is claimed) */
+  private static final int EPOCH = 0;
+
+  /** Key offset in record */
+  private static final int KEY = Long.BYTES;
+
+  /** Server start offset in record */
+  private static final int START = 2 * Long.BYTES;
+
+  /** Server end offset in record */
+  private static final int END = 3 * Long.BYTES;
+
+  /** Maximum number of slots (buffer size, {@code MAX_SLOTS * RECORD}, has to fit in an {@code int}) */
+  private static final int MAX_SLOTS = Integer.highestOneBit(Integer.MAX_VALUE / RECORD);
+
+  /** Maximum capacity */
+  static final int MAX_CAPACITY = MAX_SLOTS / 2;
+
+  /** Direct buffer {@code long} accessor (supports volatile and CAS accesses on aligned offsets) */
+  private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+  /** Slot index mask */
+  private final int mask;
+
+  /** Slot records */
+  private final ByteBuffer records;
+
+  /** Current epoch (starts at {@code 1}: table is zeroed) */
+  private volatile long epoch;
+
+  /** Number of slots claimed in current epoch */
+  private final AtomicInteger size;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link CallTimingsMap} constructor.<br>
+   * Table is twice the capacity (rounded to power of 2) to keep probe sequences short.
+   *
+   * @param capacity the expected maximum number of entries
+   */
+  CallTimingsMap(final int capacity) {
+    if(capacity > MAX_CAPACITY) {
+      throw new IllegalArgumentException("Capacity " + capacity + " exceeds " + MAX_CAPACITY);
+    }
+    int size = 2;
+    while(size < capacity * 2) {
+      size <<= 1;
+    }
+    mask = size - 1;
+    records = ByteBuffer.allocateDirect(Math.multiplyExact(size, RECORD)).order(ByteOrder.nativeOrder());
+    epoch = 1L;
+    this.size = new AtomicInteger(0);
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Compute key first slot index
+   *
+   * @param key the key
+   *
+   * @return the slot index
+   */
+  private int index(final long key) {
+    long hash = key;
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return (int)hash & mask;
+  }
+
+  /**
+   * Read slot epoch, waiting for a claim in current epoch to be published
+   *
+   * @param offset the slot offset
+   * @param cur the current epoch
+   *
+   * @return the slot epoch
+   */
+  private long slotEpoch(final int offset, final long cur) {
+    long slot = (long)LONG.getVolatile(records, offset + EPOCH);
+    while(slot == -cur) {
+      Thread.onSpinWait();
+      slot = (long)LONG.getVolatile(records, offset + EPOCH);
+    }
+    return slot;
+  }
+
+  /**
+   * Put server timings
+   *
+   * @param key the call key
+   * @param serverStart the server start
+   * @param serverEnd the server end
+   *
+   * @return {@code true} if timings have been stored, {@code false} if map is full
+   */
+  boolean put(final long key, final long serverStart, final long serverEnd) {
+    final long cur = epoch;
+    int idx = index(key);
+    for(int probe = 0 ; probe <= mask ; ++probe) {
+      final int offset = idx * RECORD;
+      long slot = slotEpoch(offset, cur);
+      if(slot != cur) {
+        // Slot from a previous epoch is empty: claim it
+        if(LONG.compareAndSet(records, offset + EPOCH, slot, -cur)) {
+          LONG.set(records, offset + END, UNSET);
+          LONG.set(records, offset + KEY, key);
+          LONG.setVolatile(records, offset + EPOCH, cur);
+          size.incrementAndGet();
+        }
+        slot = slotEpoch(offset, cur);
+      }
+      if(slot == cur && (long)LONG.get(records, offset + KEY) == key) {
+        LONG.set(records, offset + START, serverStart);
+        LONG.setVolatile(records, offset + END, serverEnd);
+        return true;
+      }
+      idx = (idx + 1) & mask;
+    }
+    return false;
+  }
+
+  /**
+   * Find key slot
+   *
+   * @param key the call key
+   *
+   * @return the slot index if timings have been published, {@code -1} otherwise
+   */
+  int find(final long key) {
+    final long cur = epoch;
+    int idx = index(key);
+    for(int probe = 0 ; probe <= mask ; ++probe) {
+      final int offset = idx * RECORD;
+      if(slotEpoch(offset, cur) != cur) {
+        return -1;
+      }
+      if((long)LONG.get(records, offset + KEY) == key) {
+        return ((long)LONG.getVolatile(records, offset + END) == UNSET) ? -1 : idx;
+      }
+      idx = (idx + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Get slot server start
+   *
+   * @param slot the slot index returned by {@link #find(long)}
+   *
+   * @return the server start
+   */
+  long serverStart(final int slot) {
+    return (long)LONG.get(records, slot * RECORD + START);
+  }
+
+  /**
+   * Get slot server end
+   *
+   * @param slot the slot index returned by {@link #find(long)}
+   *
+   * @return the server end
+   */
+  long serverEnd(final int slot) {
+    return (long)LONG.getVolatile(records, slot * RECORD + END);
+  }
+
+  /**
+   * Get number of entries
+   *
+   * @return the number of entries
+   */
+  int size() {
+    return size.get();
+  }
+
+  /**
+   * Remove all entries.<br>
+   * Entries are not erased: a new epoch is started and slots from previous
+   * epochs are considered as empty, so clearing does not depend on the table
+   * size. Map must not be written concurrently.
+   *
+   * @return the number of removed entries
+   */
+  synchronized int clear() {
+    epoch = epoch + 1;
+    return size.getAndSet(0);
+  }
+  // Methods -
+
+}
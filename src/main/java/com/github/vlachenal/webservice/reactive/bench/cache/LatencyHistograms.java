@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.stereotype.Component;
+
+
+/**
+ * Server-side latency histograms by protocol, method and mapper.<br>
+ * Latencies are recorded through HdrHistogram {@link Recorder}s: recording is
+ * wait-free and does not allocate once the recorder exists. Readers drain
+ * recorders into cumulative and interval histograms.<br>
+ * Handlers record latencies once response body has been written: streamed
+ * responses ({@code list}) include database streaming and serialization.
+ *
+ * @author Vincent Lachenal
+ */
+@Component
+public class LatencyHistograms {
+
+  // Attributes +
+  /** Number of significant value digits */
+  private static final int DIGITS = 3;
+
+  /** Recorders by protocol, method and mapper */
+  private final Map<String,Map<String,Map<String,Latency>>> latencies = new ConcurrentHashMap<>();
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Get histogram count, mean and percentiles
+   *
+   * @param histo the histogram
+   *
+   * @return count, mean, p50, p90, p99, p99.9 and max
+   */
+  public static Map<String,Object> percentiles(final Histogram histo) {
+    final Map<String,Object> percentiles = new LinkedHashMap<>();
+    percentiles.put("count", histo.getTotalCount());
+    percentiles.put("mean", histo.getMean());
+    percentiles.put("p50", histo.getValueAtPercentile(50.0));
+    percentiles.put("p90", histo.getValueAtPercentile(90.0));
+    percentiles.put("p99", histo.getValueAtPercentile(99.0));
+    percentiles.put("p99.9", histo.getValueAtPercentile(99.9));
+    percentiles.put("max", histo.getMaxValue());
+    return percentiles;
+  }
+
+  /**
+   * Record call latency
+   *
+   * @param protocol the call protocol
+   * @param method the call method
+   * @param mapper the call mapper
+   * @param latency the latency in ns
+   */
+  public void record(final String protocol, final String method, final String mapper, final long latency) {
+    if(latency < 0) {
+      return;
+    }
+    Map<String,Map<String,Latency>> byMethod = latencies.get(protocol);
+    if(byMethod == null) {
+      byMethod = latencies.computeIfAbsent(protocol, p -> new ConcurrentHashMap<>());
+    }
+    Map<String,Latency> byMapper = byMethod.get(method);
+    if(byMapper == null) {
+      byMapper = byMethod.computeIfAbsent(method, m -> new ConcurrentHashMap<>());
+    }
+    Latency lat = byMapper.get(mapper);
+    if(lat == null) {
+      lat = byMapper.computeIfAbsent(mapper, m -> new Latency());
+    }
+    lat.recorder.recordValue(latency);
+  }
+
+  /**
+   * Get latency percentiles.<br>
+   * Cumulative histograms cover calls since last reset. Interval histograms
+   * cover calls since last interval snapshot.
+   *
+   * @param interval {@code true} to get (and restart) interval histograms, {@code false} to get cumulative histograms
+   * @param reset {@code true} to reset cumulative and interval histograms after read
+   *
+   * @return the percentiles in ns by protocol, method and mapper
+   */
+  public List<Map<String,Object>> snapshot(final boolean interval, final boolean reset) {
+    final List<Map<String,Object>> res = new ArrayList<>();
+    latencies.forEach((protocol, byMethod) -> byMethod.forEach((method, byMapper) -> byMapper.forEach((mapper, lat) -> {
+      final Map<String,Object> percentiles = new LinkedHashMap<>();
+      percentiles.put("protocol", protocol);
+      percentiles.put("method", method);
+      percentiles.put("mapper", mapper);
+      percentiles.putAll(percentiles(lat.snapshot(interval, reset)));
+      res.add(percentiles);
+    })));
+    return res;
+  }
+  // Methods -
+
+
+  // Classes +
+  /**
+   * Protocol, method and mapper latency
+   *
+   * @author Vincent Lachenal
+   */
+  private static final class Latency {
+
+    // Attributes +
+    /** Latency recorder */
+    private final Recorder recorder = new Recorder(DIGITS);
+
+    /** Latencies since last reset */
+    private final Histogram cumulative = new Histogram(DIGITS);
+
+    /** Latencies since last interval snapshot */
+    private final Histogram interval = new Histogram(DIGITS);
+
+    /** Recycled recorder interval histogram */
+    private Histogram recycled;
+    // Attributes -
+
+
+    // Methods +
+    /**
+     * Drain recorder and copy histogram
+     *
+     * @param fromInterval {@code true} to copy interval histogram (which is restarted), {@code false} for cumulative one
+     * @param reset {@code true} to reset histograms after copy
+     *
+     * @return the histogram copy
+     */
+    private synchronized Histogram snapshot(final boolean fromInterval, final boolean reset) {
+      recycled = recorder.getIntervalHistogram(recycled);
+      cumulative.add(recycled);
+      interval.add(recycled);
+      final Histogram copy = (fromInterval ? interval : cumulative).copy();
+      if(fromInterval || reset) {
+        interval.reset();
+      }
+      if(reset) {
+        cumulative.reset();
+      }
+      return copy;
+    }
+    // Methods -
+
+  }
+  // Classes -
+
+}
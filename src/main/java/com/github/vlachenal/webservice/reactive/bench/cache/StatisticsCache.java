@@ -6,17 +6,38 @@
  */
 package com.github.vlachenal.webservice.reactive.bench.cache;
 
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.github.vlachenal.webservice.reactive.bench.dto.CallDTO;
 
 
 /**
- * Statistics cache
+ * Statistics cache.<br>
+ * Cache has no global lock: it is updated by every event loop thread on each call.
+ * Calls are keyed on a packed {@code long} (protocol identifier, method
+ * identifier and sequence) so registration and merge do not allocate.<br>
+ * Calls are stored in {@value #GENERATIONS} preallocated generations: when the
+ * current generation is full or older than its share of time-to-live, the
+ * oldest generation is evicted and recycled as the new current one. Rotation
+ * is done by the first registering thread which sees it is due; other
+ * threads never wait for it. Evicting a generation only starts a new epoch in
+ * its map: rotation cost does not depend on the cache capacity.<br>
+ * Registration does not log: rejected calls are counted and reported once per
+ * rotation.
  *
  * @author Vincent Lachenal
  */
@@ -24,8 +45,68 @@ import com.github.vlachenal.webservice.reactive.bench.dto.CallDTO;
 public class StatisticsCache {
 
   // Attributes +
-  /** Calls statistics */
-  private final Map<String,CallDTO> calls;
+  /** {@link StatisticsCache} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(StatisticsCache.class);
+
+  /** Default maximum number of calls */
+  public static final int DEFAULT_CAPACITY = 1 << 20;
+
+  /** Default time-to-live in seconds */
+  public static final long DEFAULT_TTL = 600;
+
+  /** Number of live generations */
+  public static final int GENERATIONS = 4;
+
+  /** Maximum protocol or method identifier */
+  private static final int MAX_ID = 0xFFFF;
+
+  /** Protocols identifiers */
+  private final Map<String,Integer> protocols;
+
+  /** Methods identifiers */
+  private final Map<String,Integer> methods;
+
+  /** Next protocol or method identifier */
+  private final AtomicInteger nextId;
+
+  /** Maximum number of calls */
+  private final int capacity;
+
+  /** Maximum number of calls per generation */
+  private final int generationCapacity;
+
+  /** Generation time-to-live in ns ({@code 0} when TTL is disabled) */
+  private final long generationTtl;
+
+  /** Nanosecond clock */
+  private final LongSupplier nanoClock;
+
+  /** Calls statistics generations ring (live generations and the one to recycle) */
+  private final CallTimingsMap[] ring;
+
+  /** Generations creation time in ns */
+  private final long[] created;
+
+  /** Current generation counter */
+  private final AtomicLong head;
+
+  /** Rotation in progress flag */
+  private final AtomicBoolean rotating;
+
+  /** Calls evicted before being merged or purged */
+  private final LongAdder evicted;
+
+  /** Calls which have not been registered because generation was full */
+  private final LongAdder rejected;
+
+  /** Rejected calls already reported (written under rotation flag) */
+  private long reportedRejected;
+
+  /** Generations which have been purged by {@link #clean()}: their calls are not counted as evicted (written under rotation flag) */
+  private final boolean[] purged;
+
+  /** Client calls without server timings */
+  private final LongAdder missed;
   // Attributes -
 
 
@@ -34,40 +115,250 @@ public class StatisticsCache {
    * {@link StatisticsCache} default constructor
    */
   public StatisticsCache() {
-    calls = new HashMap<>();
+    this(DEFAULT_CAPACITY, DEFAULT_TTL);
+  }
+
+  /**
+   * {@link StatisticsCache} constructor
+   *
+   * @param capacity the maximum number of calls
+   * @param ttl the calls time-to-live in seconds ({@code 0} to disable)
+   */
+  @Autowired
+  public StatisticsCache(@Value("${stats.cache.capacity:1048576}") final int capacity, @Value("${stats.cache.ttl:600}") final long ttl) {
+    this(capacity, ttl, System::nanoTime);
+  }
+
+  /**
+   * {@link StatisticsCache} constructor
+   *
+   * @param capacity the maximum number of calls
+   * @param ttl the calls time-to-live in seconds ({@code 0} to disable)
+   * @param nanoClock the nanosecond clock used for time-to-live
+   */
+  StatisticsCache(final int capacity, final long ttl, final LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+    protocols = new ConcurrentHashMap<>();
+    methods = new ConcurrentHashMap<>();
+    nextId = new AtomicInteger(0);
+    this.capacity = capacity;
+    generationCapacity = Math.max(1, (capacity + GENERATIONS - 1) / GENERATIONS);
+    generationTtl = TimeUnit.SECONDS.toNanos(ttl) / GENERATIONS;
+    ring = new CallTimingsMap[GENERATIONS + 1];
+    created = new long[GENERATIONS + 1];
+    purged = new boolean[GENERATIONS + 1];
+    final long now = nanoClock.getAsLong();
+    for(int i = 0 ; i < ring.length ; ++i) {
+      ring[i] = new CallTimingsMap(generationCapacity);
+      created[i] = now;
+    }
+    head = new AtomicLong(GENERATIONS);
+    rotating = new AtomicBoolean(false);
+    evicted = new LongAdder();
+    rejected = new LongAdder();
+    missed = new LongAdder();
+    // Intern customer handler vocabulary +
+    intern(protocols, "webflux");
+    intern(methods, "get");
+    intern(methods, "create");
+    intern(methods, "list");
+    // Intern customer handler vocabulary -
   }
   // Constructors -
 
 
   // Methods +
+  /**
+   * Get or assign identifier
+   *
+   * @param ids the identifiers
+   * @param name the protocol or method
+   *
+   * @return the identifier
+   */
+  private int intern(final Map<String,Integer> ids, final String name) {
+    final Integer id = ids.get(name);
+    if(id != null) {
+      return id;
+    }
+    return ids.computeIfAbsent(name, n -> {
+      final int newId = nextId.incrementAndGet();
+      if(newId > MAX_ID) {
+        throw new IllegalStateException("Too many distinct protocols and methods in statistics cache");
+      }
+      return newId;
+    });
+  }
+
+  /**
+   * Pack call key
+   *
+   * @param protocolId the protocol identifier
+   * @param methodId the method identifier
+   * @param seq the call sequence
+   *
+   * @return the key
+   */
+  private static long key(final int protocolId, final int methodId, final int seq) {
+    return ((long)protocolId << 48) | ((long)methodId << 32) | (seq & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Register call into statistics call cache
+   *
+   * @param protocol the call protocol
+   * @param method the call method
+   * @param seq the call sequence
+   * @param serverStart the server start in ns
+   * @param serverEnd the server end in ns
+   */
+  public void register(final String protocol, final String method, final int seq, final long serverStart, final long serverEnd) {
+    if(protocol == null || method == null) {
+      return;
+    }
+    final long key = key(intern(protocols, protocol), intern(methods, method), seq);
+    final long cur = head.get();
+    final int idx = (int)(cur % ring.length);
+    if(!ring[idx].put(key, serverStart, serverEnd)) {
+      rejected.increment();
+    }
+    if(ring[idx].size() >= generationCapacity || (generationTtl > 0 && nanoClock.getAsLong() - created[idx] >= generationTtl)) {
+      rotate(cur);
+    }
+  }
+
+  /**
+   * Evict the oldest generation and make it the current one.<br>
+   * Only one thread rotates generations: others keep on registering calls in
+   * the current generation which has room left (slots table is twice the
+   * generation capacity). Eviction does not scan the generation so rotation
+   * can be done on event loop threads.
+   *
+   * @param cur the current generation counter
+   */
+  private void rotate(final long cur) {
+    if(!rotating.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      if(head.get() != cur) {
+        return; // Already rotated
+      }
+      advance(cur, false);
+      final long total = rejected.sum();
+      if(total > reportedRejected) {
+        LOG.warn("{} calls have not been registered: statistics cache generation was full", total - reportedRejected);
+        reportedRejected = total;
+      }
+    } finally {
+      rotating.set(false);
+    }
+  }
+
+  /**
+   * Clear the generation to recycle and make it the current one.<br>
+   * Caller must hold rotation flag.
+   *
+   * @param cur the current generation counter
+   * @param purge the current generation is purged (its calls will not be counted as evicted)
+   */
+  private void advance(final long cur, final boolean purge) {
+    final int next = (int)((cur + 1) % ring.length);
+    final int removed = ring[next].clear();
+    if(removed > 0 && !purged[next]) {
+      evicted.add(removed);
+      LOG.debug("{} calls have been evicted from statistics cache", removed);
+    }
+    purged[next] = false;
+    purged[(int)(cur % ring.length)] = purge;
+    created[next] = nanoClock.getAsLong();
+    head.set(cur + 1); // Publishes cleared generation
+  }
+
   /**
    * Register call into statistics call cache
    *
    * @param call the call to register
    */
-  public synchronized void register(final CallDTO call) {
-    calls.put(call.getKey(), call);
+  public void register(final CallDTO call) {
+    register(call.getProtocol(), call.getMethod(), call.getSeq(), call.getServerStart(), call.getServerEnd());
   }
 
   /**
    * Merge call
    *
    * @param call the client call statistic
-   *
-   * @return the complete call if found, {@code null} otherwise
    */
   public void mergeCall(final CallDTO call) {
-    Optional.ofNullable(calls.get(call.getKey())).ifPresent(regCall -> {
-      call.setServerStart(regCall.getServerStart());
-      call.setServerEnd(regCall.getServerEnd());
-    });
+    if(call.getProtocol() == null || call.getMethod() == null) {
+      return;
+    }
+    // Unknown protocol or method has never been registered
+    final Integer protocolId = protocols.get(call.getProtocol());
+    final Integer methodId = methods.get(call.getMethod());
+    if(protocolId == null || methodId == null) {
+      missed.increment();
+      return;
+    }
+    final long key = key(protocolId, methodId, call.getSeq());
+    final long cur = head.get();
+    final long now = nanoClock.getAsLong();
+    // Look up from the most recent generation to the oldest live one +
+    for(int gen = 0 ; gen < GENERATIONS ; ++gen) {
+      final int idx = (int)((cur - gen) % ring.length);
+      if(generationTtl > 0 && now - created[idx] >= generationTtl * (GENERATIONS + 1)) {
+        break; // This generation and older ones are expired
+      }
+      final CallTimingsMap calls = ring[idx];
+      final int slot = calls.find(key);
+      if(slot != -1) {
+        call.setServerStart(calls.serverStart(slot));
+        call.setServerEnd(calls.serverEnd(slot));
+        return;
+      }
+    }
+    // Look up from the most recent generation to the oldest live one -
+    missed.increment();
+  }
+
+  /**
+   * Clean cache.<br>
+   * Generations are never cleared while they can be written: cache is rotated
+   * {@value #GENERATIONS} times, so every live generation is a freshly cleared
+   * one. Former current generation, which may still be written by in-flight
+   * registrations, is no longer looked up and is cleared on next rotation.
+   */
+  public void clean() {
+    while(!rotating.compareAndSet(false, true)) {
+      Thread.onSpinWait();
+    }
+    try {
+      for(int i = 0 ; i < GENERATIONS ; ++i) {
+        advance(head.get(), true);
+      }
+    } finally {
+      rotating.set(false);
+    }
   }
 
   /**
-   * Clean cache
+   * Get cache counters
+   *
+   * @return the counters by name
    */
-  public synchronized void clean() {
-    calls.clear();
+  public Map<String,Long> getCounters() {
+    long size = 0;
+    final long cur = head.get();
+    for(int gen = 0 ; gen < GENERATIONS ; ++gen) {
+      size += ring[(int)((cur - gen) % ring.length)].size();
+    }
+    final Map<String,Long> counters = new LinkedHashMap<>();
+    counters.put("capacity", (long)capacity);
+    counters.put("size", size);
+    counters.put("evicted", evicted.sum());
+    counters.put("rejected", rejected.sum());
+    counters.put("missed", missed.sum());
+    return counters;
   }
   // Methods -
 
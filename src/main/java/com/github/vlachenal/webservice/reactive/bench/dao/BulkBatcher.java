@@ -0,0 +1,212 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.dao;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.Subscription;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
+
+
+/**
+ * Demand driven batcher for bulk creations.<br>
+ * Items are gathered in batches of 'size' items. Incomplete batch is emitted
+ * once its first item is older than 'maxDelay'. Items are requested to
+ * upstream only for batches which have been requested by downstream, and never
+ * more than one batch ahead: a slow consumer slows the producer down (up to
+ * the socket when producer is a request body).
+ * <p>{@link Flux#bufferTimeout(int, Duration)} fails when delay expires
+ * without downstream demand, and {@link Flux#windowTimeout(int, Duration)}
+ * requests unbounded items to upstream (Reactor 3.2).
+ *
+ * @param <T> the items type
+ *
+ * @author Vincent Lachenal
+ */
+public final class BulkBatcher<T> extends BaseSubscriber<T> {
+
+  // Attributes +
+  /** Batches sink */
+  private final FluxSink<List<T>> sink;
+
+  /** Batch size */
+  private final int size;
+
+  /** Maximum delay before incomplete batch is emitted */
+  private final Duration maxDelay;
+
+  /** Delay timer */
+  private final Scheduler timer;
+
+  /** Current batch */
+  private List<T> batch;
+
+  /** Batches requested by downstream which have not been emitted yet */
+  private long demand;
+
+  /** Items requested to upstream which have not been received yet */
+  private long outstanding;
+
+  /** Current batch has to be emitted as soon as possible */
+  private boolean expired;
+
+  /** Upstream has completed */
+  private boolean done;
+
+  /** Current batch delay task */
+  private Disposable task;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link BulkBatcher} constructor
+   *
+   * @param sink the batches sink
+   * @param size the batch size
+   * @param maxDelay the maximum delay before incomplete batch is emitted
+   * @param timer the delay timer
+   */
+  private BulkBatcher(final FluxSink<List<T>> sink, final int size, final Duration maxDelay, final Scheduler timer) {
+    this.sink = sink;
+    this.size = size;
+    this.maxDelay = maxDelay;
+    this.timer = timer;
+    batch = new ArrayList<>(size);
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Gather items in batches
+   *
+   * @param <T> the items type
+   *
+   * @param items the items
+   * @param size the batch size
+   * @param maxDelay the maximum delay before incomplete batch is emitted
+   * @param timer the delay timer
+   *
+   * @return the batches
+   */
+  public static <T> Flux<List<T>> batches(final Flux<T> items, final int size, final Duration maxDelay, final Scheduler timer) {
+    return Flux.create(sink -> items.subscribe(new BulkBatcher<>(sink, size, maxDelay, timer)));
+  }
+
+  /**
+   * Register downstream callbacks. Nothing is requested until downstream
+   * requests a batch.
+   *
+   * @param subscription the upstream subscription
+   */
+  @Override
+  protected void hookOnSubscribe(final Subscription subscription) {
+    sink.onDispose(this::dispose);
+    sink.onRequest(this::onRequest);
+  }
+
+  /**
+   * Downstream requests batches
+   *
+   * @param n the number of requested batches
+   */
+  private synchronized void onRequest(final long n) {
+    demand = Operators.addCap(demand, n);
+    drain();
+  }
+
+  /**
+   * Batch delay has expired
+   *
+   * @param expiredBatch the batch whose delay has expired (ignored if it has already been emitted)
+   */
+  private synchronized void expire(final List<T> expiredBatch) {
+    if(batch == expiredBatch) {
+      expired = true;
+      drain();
+    }
+  }
+
+  @Override
+  protected synchronized void hookOnNext(final T item) {
+    --outstanding;
+    if(batch.isEmpty()) {
+      final List<T> current = batch;
+      task = timer.schedule(() -> expire(current), maxDelay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    batch.add(item);
+    drain();
+  }
+
+  @Override
+  protected synchronized void hookOnComplete() {
+    done = true;
+    drain();
+  }
+
+  @Override
+  protected synchronized void hookOnError(final Throwable error) {
+    done = true;
+    cancelTask();
+    sink.error(error);
+  }
+
+  @Override
+  protected synchronized void hookOnCancel() {
+    cancelTask();
+  }
+
+  /**
+   * Cancel current batch delay task
+   */
+  private void cancelTask() {
+    if(task != null) {
+      task.dispose();
+      task = null;
+    }
+  }
+
+  /**
+   * Emit current batch if it is full, expired or last one and if downstream
+   * has requested it, then request items for the next batch
+   */
+  private void drain() {
+    if(!batch.isEmpty() && demand > 0 && (done || expired || batch.size() >= size)) {
+      cancelTask();
+      final List<T> full = batch;
+      batch = new ArrayList<>(size);
+      expired = false;
+      if(demand != Long.MAX_VALUE) {
+        --demand;
+      }
+      sink.next(full);
+    }
+    if(done) {
+      if(batch.isEmpty()) {
+        sink.complete();
+      }
+    } else if(demand > 0) {
+      final long missing = size - batch.size() - outstanding;
+      if(missing > 0) {
+        outstanding += missing;
+        request(missing);
+      }
+    }
+  }
+  // Methods -
+
+}
@@ -6,8 +6,13 @@
  */
 package com.github.vlachenal.webservice.reactive.bench.dao;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 import javax.sql.DataSource;
@@ -16,7 +21,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
 import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
@@ -24,6 +28,9 @@ import com.github.vlachenal.webservice.reactive.bench.dto.PhoneDTO;
 import com.github.vlachenal.webservice.reactive.bench.jdbc.ReactiveJdbcTemplate;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 
 /**
@@ -39,14 +46,14 @@ public class CustomerDAO {
   /** List all customer SQL request */
   private static final String REQ_LIST_ALL = "SELECT id,first_name,last_name FROM Customer";
 
-  /** Get customer details SQL request */
-  private static final String REQ_GET_CUST = "SELECT id,first_name,last_name,birth_date,email FROM Customer WHERE id = ?";
-
-  /** Get customer address SQL request */
-  private static final String REQ_GET_CUST_ADDR = "SELECT line1,line2,line3,line4,line5,line6,zip_code,city,country FROM address WHERE customer_id = ?";
-
-  /** Get customer phones SQL request */
-  private static final String REQ_GET_CUST_PHONES = "SELECT phone_type,number FROM phone WHERE customer_id = ?";
+  /** Get customer details with address and phones SQL request (one row per address and phone) */
+  private static final String REQ_GET_DETAILS = "SELECT c.id,c.first_name,c.last_name,c.birth_date,c.email,"
+      + "a.id,a.line1,a.line2,a.line3,a.line4,a.line5,a.line6,a.zip_code,a.city,a.country,"
+      + "p.phone_type,p.number,p.id "
+      + "FROM Customer c "
+      + "LEFT JOIN address a ON a.customer_id = c.id "
+      + "LEFT JOIN phone p ON p.customer_id = c.id "
+      + "WHERE c.id = ?";
 
   /** Delete all customer SQL request */
   private static final String REQ_DELETE_ALL = "DELETE FROM Customer";
@@ -71,6 +78,14 @@ public class CustomerDAO {
   private String vacuumReqs;
   // SQL requests -
 
+  /** Bulk creation batch size */
+  @Value("${ds.customer.bulk.batchSize:250}")
+  private int bulkBatchSize;
+
+  /** Bulk creation maximum delay in ms before an incomplete batch is inserted */
+  @Value("${ds.customer.bulk.maxDelay:100}")
+  private long bulkMaxDelay;
+
   /** JDBC template */
   private ReactiveJdbcTemplate jdbc;
   // Attributes -
@@ -81,10 +96,11 @@ public class CustomerDAO {
    * Initialize JDBC template with datasource
    *
    * @param dataSource the datasource to use
+   * @param scheduler the JDBC scheduler to use
    */
   @Autowired
-  public void setDataSource(@Qualifier("ds.customer") final DataSource dataSource) {
-    jdbc = new ReactiveJdbcTemplate(dataSource);
+  public void setDataSource(@Qualifier("ds.customer") final DataSource dataSource, @Qualifier("jdbc.scheduler") final Scheduler scheduler) {
+    jdbc = new ReactiveJdbcTemplate(dataSource, scheduler);
   }
 
   /**
@@ -97,30 +113,75 @@ public class CustomerDAO {
   }
 
   /**
-   * Get customer details
+   * List all customers in database in caller thread
+   *
+   * @return the customers
+   */
+  public List<CustomerDTO> listAllBlocking() {
+    return jdbc.query(REQ_LIST_ALL, (rs, rowNum) -> new CustomerDTO(rs.getObject(1, UUID.class), rs.getString(2), rs.getString(3)));
+  }
+
+  /**
+   * Map customer details row.<br>
+   * Each row holds customer, one of its addresses and one of its phones.
+   *
+   * @param rs the result set
+   *
+   * @return the customer details with at most one address and one phone
+   *
+   * @throws SQLException any SQL error
+   */
+  private static CustomerDetails mapDetailsRow(final ResultSet rs) throws SQLException {
+    final CustomerDetails details = new CustomerDetails(new CustomerDTO(rs.getString(1), rs.getString(2), rs.getString(3), rs.getDate(4), rs.getString(5)));
+    if(rs.getString(6) != null) {
+      details.address(new AddressDTO(rs.getString(13).trim(),
+                                     rs.getString(14),
+                                     rs.getString(15),
+                                     rs.getString(7),
+                                     rs.getString(8),
+                                     rs.getString(9),
+                                     rs.getString(10),
+                                     rs.getString(11),
+                                     rs.getString(12)));
+    }
+    final String number = rs.getString(17);
+    if(number != null) {
+      details.phone(rs.getString(18), new PhoneDTO(rs.getShort(16), number.trim()));
+    }
+    return details;
+  }
+
+  /**
+   * Get customer details.<br>
+   * Customer, address and phones are retrieved in one request and rows are
+   * collapsed into the customer as they are read.
    *
    * @param id the customer identifier
    *
-   * @return the customer details
+   * @return the customer details, empty if customer does not exist
    */
-  public Optional<CustomerDTO> getDetails(final UUID id) {
-    final Optional<CustomerDTO> customer = Optional.ofNullable(jdbc.queryForObject(REQ_GET_CUST, (rs, rowNum) -> new CustomerDTO(rs.getString(1), rs.getString(2), rs.getString(3), rs.getDate(4), rs.getString(5)), id));
-    customer.ifPresent(cust -> {
-      cust.setAddress(Optional.ofNullable(jdbc.query(REQ_GET_CUST_ADDR,
-                                                     (rs, rowNum) -> new AddressDTO(rs.getString(7).trim(),
-                                                                                    rs.getString(8),
-                                                                                    rs.getString(9),
-                                                                                    rs.getString(1),
-                                                                                    rs.getString(2),
-                                                                                    rs.getString(3),
-                                                                                    rs.getString(4),
-                                                                                    rs.getString(5),
-                                                                                    rs.getString(6)), id)
-                                          .stream().findFirst().orElse(null))
-                      .orElse(null));
-      cust.setPhones(jdbc.query(REQ_GET_CUST_PHONES, (rs, rowNum) -> new PhoneDTO(rs.getShort(1), rs.getString(2).trim()), id));
-    });
-    return customer;
+  public Mono<CustomerDTO> getDetails(final UUID id) {
+    return jdbc.queryForFlux(REQ_GET_DETAILS, (rs, rowNum) -> mapDetailsRow(rs), id).reduce(CustomerDetails::merge).map(CustomerDetails::getCustomer);
+  }
+
+  /**
+   * Get customer details in caller thread
+   *
+   * @param id the customer identifier
+   *
+   * @return the customer details, {@code null} if customer does not exist
+   *
+   * @see #getDetails(UUID)
+   */
+  public CustomerDTO getDetailsBlocking(final UUID id) {
+    return jdbc.query(REQ_GET_DETAILS, rs -> {
+      CustomerDetails details = null;
+      while(rs.next()) {
+        final CustomerDetails row = mapDetailsRow(rs);
+        details = (details == null) ? row : details.merge(row);
+      }
+      return (details == null) ? null : details.getCustomer();
+    }, id);
   }
 
   /**
@@ -140,44 +201,122 @@ public class CustomerDAO {
   }
 
   /**
-   * Create customer in database
+   * Insert customers with their addresses and phones.<br>
+   * Each table is filled with one JDBC batch: customers, addresses and phones
+   * are sent in three round trips whatever the number of customers.
+   *
+   * @param con the SQL connection
+   * @param customers the customers to insert (with their identifier)
+   *
+   * @throws SQLException any SQL error
+   */
+  private void insertCustomers(final Connection con, final List<CustomerDTO> customers) throws SQLException {
+    try(final PreparedStatement custStmt = con.prepareStatement(ADD_CUSTOMER);
+        final PreparedStatement addrStmt = con.prepareStatement(ADD_ADDRESS);
+        final PreparedStatement phoneStmt = con.prepareStatement(ADD_PHONE)) {
+      int nbAddr = 0;
+      int nbPhones = 0;
+      for(final CustomerDTO customer : customers) {
+        final UUID uuid = UUID.fromString(customer.getId());
+        custStmt.setObject(1, uuid);
+        custStmt.setString(2, customer.getFirstName());
+        custStmt.setString(3, customer.getLastName());
+        custStmt.setDate(4, new java.sql.Date(customer.getBirthDate().getTime()));
+        custStmt.setString(5, customer.getEmail());
+        custStmt.addBatch();
+        final AddressDTO address = customer.getAddress();
+        if(address != null) {
+          addrStmt.setObject(1, uuid);
+          addrStmt.setString(2, getLine(address.getLines(),0));
+          addrStmt.setString(3, getLine(address.getLines(),1));
+          addrStmt.setString(4, getLine(address.getLines(),2));
+          addrStmt.setString(5, getLine(address.getLines(),3));
+          addrStmt.setString(6, getLine(address.getLines(),4));
+          addrStmt.setString(7, getLine(address.getLines(),5));
+          addrStmt.setString(8, address.getZipCode());
+          addrStmt.setString(9, address.getCity());
+          addrStmt.setString(10, address.getCountry());
+          addrStmt.setObject(11, UUID.randomUUID());
+          addrStmt.addBatch();
+          ++nbAddr;
+        }
+        if(customer.getPhones() != null) {
+          for(final PhoneDTO phone : customer.getPhones()) {
+            phoneStmt.setObject(1, uuid);
+            phoneStmt.setShort(2, phone.getType().getCode());
+            phoneStmt.setString(3, phone.getNumber());
+            phoneStmt.setObject(4, UUID.randomUUID());
+            phoneStmt.addBatch();
+            ++nbPhones;
+          }
+        }
+      }
+      custStmt.executeBatch();
+      if(nbAddr != 0) {
+        addrStmt.executeBatch();
+      }
+      if(nbPhones != 0) {
+        phoneStmt.executeBatch();
+      }
+    }
+  }
+
+  /**
+   * Create customer in database.<br>
+   * Customer, address and phones are inserted in one transaction on one
+   * connection of the JDBC scheduler.
    *
    * @param customer the customer to create
    * @param uuid the new customer identifier
    *
-   * @return the customer identifier
+   * @return the customer identifier, emitted once transaction has been committed
    */
-  @Transactional
-  public String create(final CustomerDTO customer, final UUID uuid) {
-    jdbc.update(ADD_CUSTOMER,
-                uuid,
-                customer.getFirstName(),
-                customer.getLastName(),
-                customer.getBirthDate(),
-                customer.getEmail());
-    Optional.ofNullable(customer.getAddress()).ifPresent(address -> {
-      jdbc.update(ADD_ADDRESS,
-                  uuid,
-                  getLine(address.getLines(),0),
-                  getLine(address.getLines(),1),
-                  getLine(address.getLines(),2),
-                  getLine(address.getLines(),3),
-                  getLine(address.getLines(),4),
-                  getLine(address.getLines(),5),
-                  address.getZipCode(),
-                  address.getCity(),
-                  address.getCountry(),
-                  UUID.randomUUID());
+  public Mono<String> create(final CustomerDTO customer, final UUID uuid) {
+    return jdbc.executeInTransaction(con -> {
+      customer.setId(uuid.toString());
+      insertCustomers(con, Collections.singletonList(customer));
+      return uuid.toString();
     });
-    if(customer.getPhones() != null && !customer.getPhones().isEmpty()) {
-      jdbc.batchUpdate(ADD_PHONE, customer.getPhones(), 250, (ps, phone) -> {
-        ps.setObject(1, uuid);
-        ps.setShort(2, phone.getType().getCode());
-        ps.setString(3, phone.getNumber());
-        ps.setObject(4, UUID.randomUUID());
-      });
-    }
-    return uuid.toString();
+  }
+
+  /**
+   * Create customer in database in caller thread
+   *
+   * @param customer the customer to create
+   * @param uuid the new customer identifier
+   *
+   * @return the customer identifier, once transaction has been committed
+   *
+   * @see #create(CustomerDTO, UUID)
+   */
+  public String createBlocking(final CustomerDTO customer, final UUID uuid) {
+    return jdbc.executeInTransactionBlocking(con -> {
+      customer.setId(uuid.toString());
+      insertCustomers(con, Collections.singletonList(customer));
+      return uuid.toString();
+    });
+  }
+
+  /**
+   * Create customers in database.<br>
+   * Customers are inserted by batches: each batch is inserted in its own
+   * transaction and next batch is inserted only when previous one has been
+   * committed. Incomplete batch is inserted after 'bulkMaxDelay' ms so slow
+   * streams get their identifiers back without waiting for a full batch.<br>
+   * On error, batch in progress is committed before error is propagated:
+   * every emitted identifier has been committed, customers after the last
+   * emitted identifier have not.
+   *
+   * @param customers the customers to create (with their identifier)
+   *
+   * @return the created customers' identifiers
+   */
+  public Flux<String> create(final Flux<CustomerDTO> customers) {
+    return BulkBatcher.batches(customers, bulkBatchSize, Duration.ofMillis(bulkMaxDelay), Schedulers.parallel())
+        .concatMapDelayError(batch -> jdbc.executeInTransaction(con -> {
+          insertCustomers(con, batch);
+          return batch;
+        }).flatMapIterable(created -> created).map(CustomerDTO::getId), false, 1);
   }
 
   /**
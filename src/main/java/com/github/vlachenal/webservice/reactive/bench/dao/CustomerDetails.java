@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.dao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.PhoneDTO;
+
+
+/**
+ * Customer details rows collapser.<br>
+ * Details request joins addresses and phones: it returns one row per address
+ * and phone combination. Phones are keyed on their identifier so each one is
+ * added once whatever the number of addresses. Customer holds only one
+ * address: the first one which has been read is kept.
+ *
+ * @author Vincent Lachenal
+ */
+public class CustomerDetails {
+
+  // Attributes +
+  /** Customer */
+  private final CustomerDTO customer;
+
+  /** Customer phones by identifier */
+  private final Map<Object,PhoneDTO> phones;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link CustomerDetails} constructor
+   *
+   * @param customer the customer (without address nor phone)
+   */
+  public CustomerDetails(final CustomerDTO customer) {
+    this.customer = customer;
+    phones = new LinkedHashMap<>();
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Set customer address if it has not already been set
+   *
+   * @param address the address (can be {@code null})
+   *
+   * @return {@code this}
+   */
+  public CustomerDetails address(final AddressDTO address) {
+    if(customer.getAddress() == null) {
+      customer.setAddress(address);
+    }
+    return this;
+  }
+
+  /**
+   * Add phone if it has not already been added
+   *
+   * @param id the phone identifier ({@code null} when there is no phone)
+   * @param phone the phone
+   *
+   * @return {@code this}
+   */
+  public CustomerDetails phone(final Object id, final PhoneDTO phone) {
+    if(id != null) {
+      phones.putIfAbsent(id, phone);
+    }
+    return this;
+  }
+
+  /**
+   * Merge row into details
+   *
+   * @param row the row details
+   *
+   * @return {@code this}
+   */
+  public CustomerDetails merge(final CustomerDetails row) {
+    address(row.customer.getAddress());
+    row.phones.forEach(phones::putIfAbsent);
+    return this;
+  }
+
+  /**
+   * Get customer with its address and phones
+   *
+   * @return the customer
+   */
+  public CustomerDTO getCustomer() {
+    customer.setPhones(new ArrayList<>(phones.values()));
+    return customer;
+  }
+  // Methods -
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.dao;
+
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * Persistence implementation.<br>
+ * It is resolved once per request from the {@code persistence} header:
+ * unknown or missing persistence falls back to {@link #JDBC}.
+ *
+ * @author Vincent Lachenal
+ */
+public enum Persistence {
+
+  /** JDBC DAOs wrapped by reactive JDBC template (blocking calls on JDBC scheduler) */
+  JDBC(""),
+
+  /** R2DBC DAOs (embedded H2 driver, runs in calling thread) */
+  R2DBC("-r2dbc");
+
+  // Attributes +
+  /** Protocol suffix */
+  private final String suffix;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link Persistence} constructor
+   *
+   * @param suffix the protocol suffix
+   */
+  Persistence(final String suffix) {
+    this.suffix = suffix;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Get protocol name used in statistics and histograms.<br>
+   * Calls of each persistence are registered under their own protocol so
+   * that they are kept apart in the same run.
+   *
+   * @param protocol the protocol
+   *
+   * @return the protocol for JDBC, the protocol with persistence suffix otherwise
+   */
+  public String protocol(final String protocol) {
+    return protocol + suffix;
+  }
+
+  /**
+   * Resolve persistence from request header values
+   *
+   * @param header the persistence header values
+   *
+   * @return the persistence
+   */
+  public static Persistence resolve(final List<String> header) {
+    Persistence persistence = JDBC;
+    if(header != null && !header.isEmpty() && header.get(0) != null) {
+      try {
+        persistence = valueOf(header.get(0).trim().toUpperCase(Locale.ROOT));
+      } catch(final IllegalArgumentException e) {
+        // Unknown persistence => JDBC
+      }
+    }
+    return persistence;
+  }
+  // Methods -
+
+}
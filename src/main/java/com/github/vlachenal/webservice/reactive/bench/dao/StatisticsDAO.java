@@ -6,13 +6,19 @@
  */
 package com.github.vlachenal.webservice.reactive.bench.dao;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +27,8 @@ import com.github.vlachenal.webservice.reactive.bench.dto.TestSuiteDTO;
 import com.github.vlachenal.webservice.reactive.bench.jdbc.ReactiveJdbcTemplate;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 
 /**
@@ -44,6 +52,33 @@ public class StatisticsDAO {
       + "(request_seq, test_suite_id, method, client_start, server_start, server_end, client_end, ok, error_message) "
       + "VALUES (?,?,?,?,?,?,?,?,?)";
 
+  /** Select test suite description */
+  private static final String REQ_TEST_SUITE = "SELECT protocol, mapper, compression, nb_threads, comment FROM TestSuite WHERE id = ?";
+
+  /** Select test suite calls */
+  private static final String REQ_TEST_CALLS = "SELECT request_seq, method, client_start, server_start, server_end, client_end, ok "
+      + "FROM TestCall WHERE test_suite_id = ?";
+
+  /** Test call table */
+  private static final String TEST_CALL_TABLE = "TestCall";
+
+  /** Test call columns */
+  private static final String[] TEST_CALL_COLUMNS = {
+    "request_seq", "test_suite_id", "method", "client_start", "server_start", "server_end", "client_end", "ok", "error_message"
+  };
+
+  /** Use COPY protocol to register test calls when available */
+  @Value("${ds.customer.calls.copy:false}")
+  private boolean callsCopy;
+
+  /** Test calls registration batch size */
+  @Value("${ds.customer.calls.batchSize:250}")
+  private int callsBatchSize;
+
+  /** Test calls registration parallelism (number of connections) */
+  @Value("${ds.customer.calls.parallelism:1}")
+  private int callsParallelism;
+
   /** JDBC template */
   private ReactiveJdbcTemplate jdbc;
   // Attributes -
@@ -54,10 +89,11 @@ public class StatisticsDAO {
    * Initialize JDBC template with datasource
    *
    * @param dataSource the datasource to use
+   * @param scheduler the JDBC scheduler to use
    */
   @Autowired
-  public void setDataSource(@Qualifier("ds.customer") final DataSource dataSource) {
-    jdbc = new ReactiveJdbcTemplate(dataSource);
+  public void setDataSource(@Qualifier("ds.customer") final DataSource dataSource, @Qualifier("jdbc.scheduler") final Scheduler scheduler) {
+    jdbc = new ReactiveJdbcTemplate(dataSource, scheduler);
   }
 
   /**
@@ -91,19 +127,20 @@ public class StatisticsDAO {
       ps.setString(18, testSuite.getMapper());
     });
     Optional.ofNullable(testSuite.getCalls()).ifPresent(calls -> {
-      registerCalls(uuid, Flux.fromIterable(calls));
+      jdbc.batchUpdate(INS_TEST_CALL, calls, callsBatchSize, callSetter(uuid));
     });
     return uuid.toString();
   }
 
   /**
-   * Register calls to test suite
+   * Build test call insertion statement setter
    *
    * @param uuid the test suite UUID
-   * @param calls the calls to register
+   *
+   * @return the statement setter
    */
-  public void registerCalls(final UUID uuid, final Flux<CallDTO> calls) {
-    jdbc.batchUpdate(INS_TEST_CALL, calls, 250, (ps, call) -> {
+  private ParameterizedPreparedStatementSetter<CallDTO> callSetter(final UUID uuid) {
+    return (ps, call) -> {
       ps.setInt(1, call.getSeq());
       ps.setObject(2, uuid);
       ps.setString(3, call.getMethod());
@@ -113,7 +150,119 @@ public class StatisticsDAO {
       ps.setLong(7, call.getClientEnd());
       ps.setBoolean(8, call.isOk());
       ps.setString(9, call.getErrMsg());
-    });
+    };
+  }
+
+  /**
+   * Build test call values (in {@link #TEST_CALL_COLUMNS} order)
+   *
+   * @param uuid the test suite UUID
+   *
+   * @return the values extractor
+   */
+  private Function<CallDTO,Object[]> callValues(final UUID uuid) {
+    return call -> new Object[] {
+      call.getSeq(),
+      uuid,
+      call.getMethod(),
+      call.getClientStart(),
+      call.getServerStart(),
+      call.getServerEnd(),
+      call.getClientEnd(),
+      call.isOk(),
+      call.getErrMsg()
+    };
+  }
+
+  /**
+   * Register calls to test suite.<br>
+   * Calls are streamed through COPY protocol when it is enabled (PostgreSQL
+   * only, other databases fall back to batch update). Otherwise, calls are
+   * spread over several connections when parallelism is greater than 1.
+   *
+   * @param uuid the test suite UUID
+   * @param calls the calls to register
+   *
+   * @return the number of registered calls
+   */
+  public Mono<Integer> registerCalls(final UUID uuid, final Flux<CallDTO> calls) {
+    if(callsCopy) {
+      return jdbc.copyIn(TEST_CALL_TABLE, TEST_CALL_COLUMNS, calls, callsBatchSize, callValues(uuid)).map(Long::intValue);
+    }
+    if(callsParallelism > 1) {
+      return jdbc.parallelBatchUpdateForMono(INS_TEST_CALL, calls, callsParallelism, callsBatchSize, callSetter(uuid));
+    }
+    return jdbc.batchUpdateForMono(INS_TEST_CALL, calls, callsBatchSize, callSetter(uuid));
+  }
+
+  /**
+   * Register calls to test suite in caller thread with batch updates
+   *
+   * @param uuid the test suite UUID
+   * @param calls the calls to register
+   *
+   * @return the number of registered calls
+   */
+  public int registerCallsBlocking(final UUID uuid, final List<CallDTO> calls) {
+    int count = 0;
+    for(final int[] counts : jdbc.batchUpdate(INS_TEST_CALL, calls, callsBatchSize, callSetter(uuid))) {
+      count += counts.length;
+    }
+    return count;
+  }
+
+  /**
+   * Find test suite description (without calls)
+   *
+   * @param uuid the test suite UUID
+   *
+   * @return the test suite, empty if it does not exist
+   */
+  public Mono<TestSuiteDTO> find(final UUID uuid) {
+    return jdbc.queryForFlux(REQ_TEST_SUITE, (res, rowNum) -> {
+      final TestSuiteDTO suite = new TestSuiteDTO();
+      suite.setId(uuid.toString());
+      suite.setProtocol(res.getString(1));
+      suite.setMapper(Optional.ofNullable(res.getString(2)).map(String::trim).orElse(null));
+      suite.setCompression(res.getString(3));
+      suite.setNbThreads(res.getInt(4));
+      suite.setComment(res.getString(5));
+      return suite;
+    }, uuid).next();
+  }
+
+  /**
+   * Map test call row
+   *
+   * @param res the result set
+   * @param rowNum the row number
+   *
+   * @return the call
+   *
+   * @throws SQLException any SQL error
+   */
+  private static CallDTO mapCallRow(final ResultSet res, final int rowNum) throws SQLException {
+    final CallDTO call = new CallDTO();
+    call.setSeq(res.getInt(1));
+    call.setMethod(res.getString(2));
+    call.setClientStart(res.getLong(3));
+    call.setServerStart(res.getLong(4));
+    call.setServerEnd(res.getLong(5));
+    call.setClientEnd(res.getLong(6));
+    call.setOk(res.getBoolean(7));
+    return call;
+  }
+
+  /**
+   * Stream test suite calls.<br>
+   * Calls are fetched on demand: they are never loaded all at once.
+   *
+   * @param uuid the test suite UUID
+   *
+   * @return the calls
+   */
+  public Flux<CallDTO> streamCalls(final UUID uuid) {
+    return jdbc.queryForFlux(REQ_TEST_CALLS, StatisticsDAO::mapCallRow, uuid);
   }
   // Methods -
 
@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.dao.r2dbc;
+
+import java.util.function.Function;
+
+import org.reactivestreams.Publisher;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Abstract R2DBC DAO.<br>
+ * Connections are acquired on subscription and released on completion, error
+ * or cancellation. Nothing is run on a dedicated scheduler: signals are
+ * emitted on driver threads (subscriber thread for embedded H2).
+ *
+ * @author Vincent Lachenal
+ */
+public abstract class AbstractR2dbcDAO {
+
+  // Attributes +
+  /** R2DBC connection factory */
+  protected final ConnectionFactory factory;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link AbstractR2dbcDAO} constructor
+   *
+   * @param factory the R2DBC connection factory to use
+   */
+  protected AbstractR2dbcDAO(final ConnectionFactory factory) {
+    this.factory = factory;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Execute action on one connection (auto-commit mode)
+   *
+   * @param <T> the result type
+   *
+   * @param action the action
+   *
+   * @return the action result
+   */
+  protected <T> Flux<T> withConnection(final Function<Connection,Publisher<T>> action) {
+    return Flux.usingWhen(factory.create(), action, Connection::close, Connection::close, Connection::close);
+  }
+
+  /**
+   * Execute action in a transaction on one connection.<br>
+   * Transaction is committed once action has completed and rolled back on
+   * error or cancellation: result completes only once transaction is over.
+   *
+   * @param <T> the result type
+   *
+   * @param action the action
+   *
+   * @return the action result
+   */
+  protected <T> Flux<T> inTransaction(final Function<Connection,Publisher<T>> action) {
+    return Flux.usingWhen(factory.create(),
+                          con -> Flux.from(con.beginTransaction()).thenMany(Flux.defer(() -> action.apply(con))),
+                          con -> Flux.concatDelayError(con.commitTransaction(), con.close()),
+                          con -> Flux.concatDelayError(con.rollbackTransaction(), con.close()),
+                          con -> Flux.concatDelayError(con.rollbackTransaction(), con.close()));
+  }
+
+  /**
+   * Execute statement
+   *
+   * @param stmt the statement
+   *
+   * @return the number of updated rows
+   */
+  protected static Mono<Integer> execute(final Statement stmt) {
+    return Flux.from(stmt.execute()).flatMap(Result::getRowsUpdated).reduce(0, Integer::sum);
+  }
+
+  /**
+   * Bind nullable value
+   *
+   * @param stmt the statement
+   * @param index the parameter index (starts at 0)
+   * @param value the value
+   * @param type the value type
+   *
+   * @return the statement
+   */
+  protected static Statement bind(final Statement stmt, final int index, final Object value, final Class<?> type) {
+    return (value == null) ? stmt.bindNull(index, type) : stmt.bind(index, value);
+  }
+  // Methods -
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.dao.r2dbc;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Result;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * R2DBC configuration.<br>
+ * Database is embedded H2: its R2DBC driver is not asynchronous and runs each
+ * query in the calling thread, blocking the event loop. JDBC DAOs query
+ * PostgreSQL on a dedicated scheduler, so R2DBC and JDBC results are not an
+ * apples-to-apples comparison of the drivers.
+ *
+ * @author Vincent Lachenal
+ */
+@Configuration
+public class R2dbcConfig {
+
+  // Methods +
+  /**
+   * Read SQL script statements.<br>
+   * Comment lines ({@code --}) are skipped and statements are separated by
+   * {@code ;}.
+   *
+   * @param script the SQL script
+   *
+   * @return the statements
+   */
+  public static List<String> readStatements(final Resource script) {
+    final String sql;
+    try(final BufferedReader reader = new BufferedReader(new InputStreamReader(script.getInputStream(), StandardCharsets.UTF_8))) {
+      sql = reader.lines().filter(line -> !line.trim().startsWith("--")).collect(Collectors.joining("\n"));
+    } catch(final IOException e) {
+      throw new UncheckedIOException("Unable to read " + script.getDescription(), e);
+    }
+    final List<String> statements = new ArrayList<>();
+    for(final String stmt : sql.split(";")) {
+      if(!stmt.trim().isEmpty()) {
+        statements.add(stmt.trim());
+      }
+    }
+    return statements;
+  }
+
+  /**
+   * Execute SQL script in one batch
+   *
+   * @param factory the R2DBC connection factory
+   * @param script the SQL script
+   *
+   * @return the completion signal
+   */
+  public static Mono<Void> executeScript(final ConnectionFactory factory, final Resource script) {
+    final List<String> statements = readStatements(script);
+    return Flux.usingWhen(factory.create(), (final Connection con) -> {
+      final Batch batch = con.createBatch();
+      statements.forEach(batch::add);
+      return Flux.from(batch.execute()).flatMap(Result::getRowsUpdated);
+    }, Connection::close, Connection::close, Connection::close).then();
+  }
+
+  /**
+   * Provide R2DBC connection factory.<br>
+   * Schema is created before factory is made available.
+   *
+   * @param url the R2DBC URL
+   * @param schema the schema creation script ({@code CREATE ... IF NOT EXISTS} statements)
+   *
+   * @return the connection factory
+   */
+  @Bean(name="r2dbc.customer")
+  public ConnectionFactory provideR2dbcConnectionFactory(@Value("${ds.r2dbc.url:r2dbc:h2:mem:///apibenchmark;DB_CLOSE_DELAY=-1}") final String url,
+                                                         @Value("${ds.r2dbc.schema:classpath:schema-hsqldb.sql}") final Resource schema) {
+    final ConnectionFactory factory = ConnectionFactories.get(url);
+    executeScript(factory, schema).block();
+    return factory;
+  }
+  // Methods -
+
+}
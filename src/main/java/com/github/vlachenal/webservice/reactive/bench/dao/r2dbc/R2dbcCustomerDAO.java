@@ -0,0 +1,296 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.dao.r2dbc;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.github.vlachenal.webservice.reactive.bench.dao.BulkBatcher;
+import com.github.vlachenal.webservice.reactive.bench.dao.CustomerDAO;
+import com.github.vlachenal.webservice.reactive.bench.dao.CustomerDetails;
+import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.PhoneDTO;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+
+/**
+ * R2DBC customer DAO.<br>
+ * Same requests as {@link CustomerDAO} through R2DBC API. Bundled H2 driver runs
+ * queries in the calling thread: it is not a non-blocking I/O driver.
+ *
+ * @author Vincent Lachenal
+ */
+@Repository
+public class R2dbcCustomerDAO extends AbstractR2dbcDAO {
+
+  // Attributes +
+  // SQL requests +
+  /** List all customer SQL request */
+  private static final String REQ_LIST_ALL = "SELECT id,first_name,last_name FROM Customer";
+
+  /** Get customer details with address and phones SQL request (one row per address and phone) */
+  private static final String REQ_GET_DETAILS = "SELECT c.id,c.first_name,c.last_name,c.birth_date,c.email,"
+      + "a.id,a.line1,a.line2,a.line3,a.line4,a.line5,a.line6,a.zip_code,a.city,a.country,"
+      + "p.phone_type,p.number,p.id "
+      + "FROM Customer c "
+      + "LEFT JOIN address a ON a.customer_id = c.id "
+      + "LEFT JOIN phone p ON p.customer_id = c.id "
+      + "WHERE c.id = $1";
+
+  /** Delete all customer SQL request */
+  private static final String REQ_DELETE_ALL = "DELETE FROM Customer";
+
+  /** Insert customer in database */
+  private static final String ADD_CUSTOMER = "INSERT INTO customer "
+      + "(id,first_name,last_name,birth_date,email) "
+      + "VALUES ($1,$2,$3,$4,$5)";
+
+  /** Insert address in database */
+  private static final String ADD_ADDRESS = "INSERT INTO address "
+      + "(customer_id,line1,line2,line3,line4,line5,line6,zip_code,city,country,id) "
+      + "VALUES ($1,$2,$3,$4,$5,$6,$7,$8,$9,$10,$11)";
+
+  /** Insert phone in database */
+  private static final String ADD_PHONE = "INSERT INTO phone "
+      + "(customer_id,phone_type,number,id) "
+      + "VALUES ($1,$2,$3,$4)";
+  // SQL requests -
+
+  /** Bulk creation batch size */
+  private final int bulkBatchSize;
+
+  /** Bulk creation maximum delay before an incomplete batch is inserted */
+  private final Duration bulkMaxDelay;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link R2dbcCustomerDAO} constructor
+   *
+   * @param factory the R2DBC connection factory to use
+   * @param bulkBatchSize the bulk creation batch size
+   * @param bulkMaxDelay the bulk creation maximum delay in ms before an incomplete batch is inserted
+   */
+  public R2dbcCustomerDAO(@Qualifier("r2dbc.customer") final ConnectionFactory factory,
+                          @Value("${ds.customer.bulk.batchSize:250}") final int bulkBatchSize,
+                          @Value("${ds.customer.bulk.maxDelay:100}") final long bulkMaxDelay) {
+    super(factory);
+    this.bulkBatchSize = bulkBatchSize;
+    this.bulkMaxDelay = Duration.ofMillis(bulkMaxDelay);
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * List all customers in database
+   *
+   * @return the customers' stream
+   */
+  public Flux<CustomerDTO> listAll() {
+    return withConnection(con -> Flux.from(con.createStatement(REQ_LIST_ALL).execute())
+                          .flatMap(res -> res.map((row, meta) -> new CustomerDTO(row.get(0, UUID.class), row.get(1, String.class), row.get(2, String.class)))));
+  }
+
+  /**
+   * Trim nullable string
+   *
+   * @param value the value
+   *
+   * @return the trimmed value, {@code null} if value is {@code null}
+   */
+  private static String trim(final String value) {
+    return (value == null) ? null : value.trim();
+  }
+
+  /**
+   * Map customer details row.<br>
+   * Each row holds customer, one of its addresses and one of its phones.
+   *
+   * @param row the row
+   *
+   * @return the customer details with at most one address and one phone
+   */
+  private static CustomerDetails mapDetailsRow(final Row row) {
+    final LocalDate birthDate = row.get(3, LocalDate.class);
+    final CustomerDetails details = new CustomerDetails(new CustomerDTO(row.get(0, UUID.class).toString(),
+                                                                        row.get(1, String.class),
+                                                                        row.get(2, String.class),
+                                                                        (birthDate == null) ? null : java.sql.Date.valueOf(birthDate),
+                                                                        row.get(4, String.class)));
+    if(row.get(5) != null) {
+      details.address(new AddressDTO(trim(row.get(12, String.class)),
+                                     row.get(13, String.class),
+                                     row.get(14, String.class),
+                                     row.get(6, String.class),
+                                     row.get(7, String.class),
+                                     row.get(8, String.class),
+                                     row.get(9, String.class),
+                                     row.get(10, String.class),
+                                     row.get(11, String.class)));
+    }
+    final String number = row.get(16, String.class);
+    if(number != null) {
+      details.phone(row.get(17, UUID.class), new PhoneDTO(row.get(15, Short.class), number.trim()));
+    }
+    return details;
+  }
+
+  /**
+   * Get customer details.<br>
+   * Customer, address and phones are retrieved in one request and rows are
+   * collapsed into the customer as they are read.
+   *
+   * @param id the customer identifier
+   *
+   * @return the customer details, empty if customer does not exist
+   */
+  public Mono<CustomerDTO> getDetails(final UUID id) {
+    return withConnection(con -> Flux.from(con.createStatement(REQ_GET_DETAILS).bind(0, id).execute())
+                          .flatMap(res -> res.map((row, meta) -> mapDetailsRow(row))))
+        .reduce(CustomerDetails::merge)
+        .map(CustomerDetails::getCustomer);
+  }
+
+  /**
+   * Get address line value to insert
+   *
+   * @param lines the address lines
+   * @param idx the line index
+   *
+   * @return the line, {@code null} if it does not exist
+   */
+  private static String getLine(final List<String> lines, final int idx) {
+    String line = null;
+    if(lines != null && lines.size() > idx) {
+      line = lines.get(idx);
+    }
+    return line;
+  }
+
+  /**
+   * Insert customers with their addresses and phones.<br>
+   * Each table is filled with one batched statement: customers, addresses and
+   * phones are sent in three executions whatever the number of customers.
+   *
+   * @param con the R2DBC connection
+   * @param customers the customers to insert (with their identifier)
+   *
+   * @return the completion signal
+   */
+  private static Mono<Void> insertCustomers(final Connection con, final List<CustomerDTO> customers) {
+    final Statement custStmt = con.createStatement(ADD_CUSTOMER);
+    final Statement addrStmt = con.createStatement(ADD_ADDRESS);
+    final Statement phoneStmt = con.createStatement(ADD_PHONE);
+    int nbCust = 0;
+    int nbAddr = 0;
+    int nbPhones = 0;
+    for(final CustomerDTO customer : customers) {
+      final UUID uuid = UUID.fromString(customer.getId());
+      if(nbCust++ != 0) {
+        custStmt.add();
+      }
+      custStmt.bind(0, uuid);
+      custStmt.bind(1, customer.getFirstName());
+      custStmt.bind(2, customer.getLastName());
+      custStmt.bind(3, new java.sql.Date(customer.getBirthDate().getTime()).toLocalDate());
+      bind(custStmt, 4, customer.getEmail(), String.class);
+      final AddressDTO address = customer.getAddress();
+      if(address != null) {
+        if(nbAddr++ != 0) {
+          addrStmt.add();
+        }
+        addrStmt.bind(0, uuid);
+        for(int i = 0 ; i < 6 ; ++i) {
+          bind(addrStmt, i + 1, getLine(address.getLines(), i), String.class);
+        }
+        addrStmt.bind(7, address.getZipCode());
+        addrStmt.bind(8, address.getCity());
+        addrStmt.bind(9, address.getCountry());
+        addrStmt.bind(10, UUID.randomUUID());
+      }
+      if(customer.getPhones() != null) {
+        for(final PhoneDTO phone : customer.getPhones()) {
+          if(nbPhones++ != 0) {
+            phoneStmt.add();
+          }
+          phoneStmt.bind(0, uuid);
+          phoneStmt.bind(1, phone.getType().getCode());
+          phoneStmt.bind(2, phone.getNumber());
+          phoneStmt.bind(3, UUID.randomUUID());
+        }
+      }
+    }
+    return execute(custStmt)
+        .then((nbAddr == 0) ? Mono.empty() : execute(addrStmt))
+        .then((nbPhones == 0) ? Mono.empty() : execute(phoneStmt))
+        .then();
+  }
+
+  /**
+   * Create customer in database.<br>
+   * Customer, address and phones are inserted in one transaction.
+   *
+   * @param customer the customer to create
+   * @param uuid the new customer identifier
+   *
+   * @return the customer identifier, emitted once transaction has been committed
+   */
+  public Mono<String> create(final CustomerDTO customer, final UUID uuid) {
+    return Mono.defer(() -> {
+      customer.setId(uuid.toString());
+      return inTransaction(con -> insertCustomers(con, Collections.singletonList(customer))).then(Mono.just(uuid.toString()));
+    });
+  }
+
+  /**
+   * Create customers in database.<br>
+   * Customers are inserted by batches: each batch is inserted in its own
+   * transaction and next batch is inserted only when previous one has been
+   * committed. Incomplete batch is inserted after 'bulkMaxDelay'.<br>
+   * On error, batch in progress is committed before error is propagated:
+   * every emitted identifier has been committed, customers after the last
+   * emitted identifier have not.
+   *
+   * @param customers the customers to create (with their identifier)
+   *
+   * @return the created customers' identifiers
+   *
+   * @see CustomerDAO#create(Flux)
+   */
+  public Flux<String> create(final Flux<CustomerDTO> customers) {
+    return BulkBatcher.batches(customers, bulkBatchSize, bulkMaxDelay, Schedulers.parallel())
+        .concatMapDelayError(batch -> inTransaction(con -> insertCustomers(con, batch)).thenMany(Flux.fromIterable(batch)).map(CustomerDTO::getId), false, 1);
+  }
+
+  /**
+   * Delete all customers in database (addresses and phones are deleted on cascade)
+   *
+   * @return the completion signal
+   */
+  public Mono<Void> deleteAll() {
+    return withConnection(con -> execute(con.createStatement(REQ_DELETE_ALL))).then();
+  }
+  // Methods -
+
+}
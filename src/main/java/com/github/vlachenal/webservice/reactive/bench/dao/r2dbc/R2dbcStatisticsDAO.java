@@ -0,0 +1,207 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.dao.r2dbc;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import com.github.vlachenal.webservice.reactive.bench.dao.StatisticsDAO;
+import com.github.vlachenal.webservice.reactive.bench.dto.CallDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.TestSuiteDTO;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * R2DBC statistics DAO.<br>
+ * Same requests as {@link StatisticsDAO} through R2DBC API. Bundled H2 driver runs
+ * queries in the calling thread: it is not a non-blocking I/O driver.
+ *
+ * @author Vincent Lachenal
+ */
+@Repository
+public class R2dbcStatisticsDAO extends AbstractR2dbcDAO {
+
+  // Attributes +
+  /** Insert test suite */
+  private static final String INS_TEST_SUITE = "INSERT INTO TestSuite "
+      + "(id, client_cpu, client_memory, client_jvm_version, client_jvm_vendor, client_os_name, "
+      + "client_os_version, server_cpu, server_memory, server_jvm_version, server_jvm_vendor, "
+      + "server_os_name, server_os_version, protocol, compression, nb_threads, comment, mapper) "
+      + "VALUES ($1,$2,$3,$4,$5,$6,$7,$8,$9,$10,$11,$12,$13,$14,$15,$16,$17,$18)";
+
+  /** Insert test call */
+  private static final String INS_TEST_CALL = "INSERT INTO TestCall "
+      + "(request_seq, test_suite_id, method, client_start, server_start, server_end, client_end, ok, error_message) "
+      + "VALUES ($1,$2,$3,$4,$5,$6,$7,$8,$9)";
+
+  /** Select test suite description */
+  private static final String REQ_TEST_SUITE = "SELECT protocol, mapper, compression, nb_threads, comment FROM TestSuite WHERE id = $1";
+
+  /** Select test suite calls */
+  private static final String REQ_TEST_CALLS = "SELECT request_seq, method, client_start, server_start, server_end, client_end, ok "
+      + "FROM TestCall WHERE test_suite_id = $1";
+
+  /** Test calls registration batch size */
+  private final int callsBatchSize;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link R2dbcStatisticsDAO} constructor
+   *
+   * @param factory the R2DBC connection factory to use
+   * @param callsBatchSize the test calls registration batch size
+   */
+  public R2dbcStatisticsDAO(@Qualifier("r2dbc.customer") final ConnectionFactory factory, @Value("${ds.customer.calls.batchSize:250}") final int callsBatchSize) {
+    super(factory);
+    this.callsBatchSize = callsBatchSize;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Build test calls insertion statement
+   *
+   * @param con the R2DBC connection
+   * @param uuid the test suite UUID
+   * @param calls the calls to insert
+   *
+   * @return the batched statement
+   */
+  private static Statement insertCalls(final Connection con, final UUID uuid, final List<CallDTO> calls) {
+    final Statement stmt = con.createStatement(INS_TEST_CALL);
+    int nbCalls = 0;
+    for(final CallDTO call : calls) {
+      if(nbCalls++ != 0) {
+        stmt.add();
+      }
+      stmt.bind(0, call.getSeq());
+      stmt.bind(1, uuid);
+      stmt.bind(2, call.getMethod());
+      stmt.bind(3, call.getClientStart());
+      stmt.bind(4, call.getServerStart());
+      stmt.bind(5, call.getServerEnd());
+      stmt.bind(6, call.getClientEnd());
+      stmt.bind(7, call.isOk());
+      bind(stmt, 8, call.getErrMsg(), String.class);
+    }
+    return stmt;
+  }
+
+  /**
+   * Save test suite in database.<br>
+   * Test suite and its calls are inserted in one transaction.
+   *
+   * @param testSuite the test suite to save
+   * @param uuid the new test suite identifier
+   *
+   * @return the test suite UUID, emitted once transaction has been committed
+   */
+  public Mono<String> save(final TestSuiteDTO testSuite, final UUID uuid) {
+    return inTransaction(con -> {
+      final Statement stmt = con.createStatement(INS_TEST_SUITE).bind(0, uuid);
+      bind(stmt, 1, testSuite.getClientCpu(), String.class);
+      bind(stmt, 2, testSuite.getClientMemory(), String.class);
+      bind(stmt, 3, testSuite.getClientJvmVersion(), String.class);
+      bind(stmt, 4, testSuite.getClientJvmVendor(), String.class);
+      bind(stmt, 5, testSuite.getClientOsName(), String.class);
+      bind(stmt, 6, testSuite.getClientOsVersion(), String.class);
+      bind(stmt, 7, testSuite.getServerCpu(), String.class);
+      bind(stmt, 8, testSuite.getServerMemory(), String.class);
+      bind(stmt, 9, testSuite.getServerJvmVersion(), String.class);
+      bind(stmt, 10, testSuite.getServerJvmVendor(), String.class);
+      bind(stmt, 11, testSuite.getServerOsName(), String.class);
+      bind(stmt, 12, testSuite.getServerOsVersion(), String.class);
+      bind(stmt, 13, testSuite.getProtocol(), String.class);
+      bind(stmt, 14, testSuite.getCompression(), String.class);
+      stmt.bind(15, testSuite.getNbThreads());
+      bind(stmt, 16, testSuite.getComment(), String.class);
+      bind(stmt, 17, testSuite.getMapper(), String.class);
+      final List<CallDTO> calls = testSuite.getCalls();
+      return execute(stmt).then((calls == null || calls.isEmpty()) ? Mono.empty() : execute(insertCalls(con, uuid, calls)));
+    }).then(Mono.just(uuid.toString()));
+  }
+
+  /**
+   * Register calls to test suite.<br>
+   * Calls are inserted by batches on one connection: next batch is requested
+   * only when previous one has been executed.
+   *
+   * @param uuid the test suite UUID
+   * @param calls the calls to register
+   *
+   * @return the number of registered calls
+   */
+  public Mono<Integer> registerCalls(final UUID uuid, final Flux<CallDTO> calls) {
+    return withConnection(con -> calls.buffer(callsBatchSize).concatMap(batch -> execute(insertCalls(con, uuid, batch)), 1)).reduce(0, Integer::sum);
+  }
+
+  /**
+   * Find test suite description (without calls)
+   *
+   * @param uuid the test suite UUID
+   *
+   * @return the test suite, empty if it does not exist
+   */
+  public Mono<TestSuiteDTO> find(final UUID uuid) {
+    return withConnection(con -> Flux.from(con.createStatement(REQ_TEST_SUITE).bind(0, uuid).execute()).flatMap(res -> res.map((row, meta) -> {
+      final TestSuiteDTO suite = new TestSuiteDTO();
+      suite.setId(uuid.toString());
+      suite.setProtocol(row.get(0, String.class));
+      final String mapper = row.get(1, String.class);
+      suite.setMapper((mapper == null) ? null : mapper.trim());
+      suite.setCompression(row.get(2, String.class));
+      suite.setNbThreads(row.get(3, Integer.class));
+      suite.setComment(row.get(4, String.class));
+      return suite;
+    }))).next();
+  }
+
+  /**
+   * Map test call row
+   *
+   * @param row the row
+   *
+   * @return the call
+   */
+  private static CallDTO mapCallRow(final Row row) {
+    final CallDTO call = new CallDTO();
+    call.setSeq(row.get(0, Integer.class));
+    call.setMethod(row.get(1, String.class));
+    call.setClientStart(row.get(2, Long.class));
+    call.setServerStart(row.get(3, Long.class));
+    call.setServerEnd(row.get(4, Long.class));
+    call.setClientEnd(row.get(5, Long.class));
+    call.setOk(row.get(6, Boolean.class));
+    return call;
+  }
+
+  /**
+   * Stream test suite calls
+   *
+   * @param uuid the test suite UUID
+   *
+   * @return the calls
+   */
+  public Flux<CallDTO> streamCalls(final UUID uuid) {
+    return withConnection(con -> Flux.from(con.createStatement(REQ_TEST_CALLS).bind(0, uuid).execute()).flatMap(res -> res.map((row, meta) -> mapCallRow(row))));
+  }
+  // Methods -
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.jdbc;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+
+/**
+ * JDBC configuration
+ *
+ * @author Vincent Lachenal
+ */
+@Configuration
+public class JdbcConfig {
+
+  // Methods +
+  /**
+   * Provide JDBC executor.<br>
+   * It is bounded to the customer datasource maximum pool size: there is no
+   * need to have more threads than available connections.
+   *
+   * @param poolSize the customer datasource maximum pool size
+   *
+   * @return the executor
+   */
+  @Bean(name="jdbc.executor", destroyMethod="shutdown")
+  public ExecutorService provideJdbcExecutor(@Value("${ds.customer.maximumPoolSize:10}") final int poolSize) {
+    return Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("jdbc-"));
+  }
+
+  /**
+   * Provide JDBC scheduler.<br>
+   * Blocking JDBC calls are run on this scheduler instead of the caller thread.
+   * Tasks are trampolined: tasks of the same worker (subscription) are run one
+   * after another, so a result set is never accessed by two threads at once.
+   *
+   * @param executor the JDBC executor
+   *
+   * @return the scheduler
+   */
+  @Bean(name="jdbc.scheduler")
+  public Scheduler provideJdbcScheduler(@Qualifier("jdbc.executor") final ExecutorService executor) {
+    return Schedulers.fromExecutor(executor, true);
+  }
+  // Methods -
+
+}
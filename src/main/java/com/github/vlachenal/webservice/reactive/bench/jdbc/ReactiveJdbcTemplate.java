@@ -6,15 +6,23 @@
  */
 package com.github.vlachenal.webservice.reactive.bench.jdbc;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import javax.sql.DataSource;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ParameterDisposer;
 import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
@@ -23,12 +31,16 @@ import org.springframework.jdbc.core.PreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.jdbc.core.SqlProvider;
+import org.springframework.jdbc.core.SqlTypeValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 
 /**
@@ -38,6 +50,23 @@ import reactor.core.publisher.Flux;
  */
 public class ReactiveJdbcTemplate extends JdbcTemplate {
 
+  // Attributes +
+  /** Default maximum fetch size for streamed queries */
+  public static final int DEFAULT_MAX_FETCH_SIZE = 1000;
+
+  /** Scheduler on which blocking JDBC operations are run (caller thread if {@code null}) */
+  @Nullable
+  private final Scheduler scheduler;
+
+  /** Maximum fetch size for streamed queries */
+  private int maxFetchSize = DEFAULT_MAX_FETCH_SIZE;
+
+  /** JDBC driver supports COPY protocol (computed on first use) */
+  @Nullable
+  private volatile Boolean copySupported;
+  // Attributes -
+
+
   // Constructors +
   /**
    * {@link ReactiveJdbcTemplate} constructor
@@ -45,7 +74,18 @@ public class ReactiveJdbcTemplate extends JdbcTemplate {
    * @param dataSource the data source to use
    */
   public ReactiveJdbcTemplate(final DataSource dataSource) {
+    this(dataSource, null);
+  }
+
+  /**
+   * {@link ReactiveJdbcTemplate} constructor
+   *
+   * @param dataSource the data source to use
+   * @param scheduler the scheduler on which blocking JDBC operations will be run
+   */
+  public ReactiveJdbcTemplate(final DataSource dataSource, @Nullable final Scheduler scheduler) {
     super(dataSource);
+    this.scheduler = scheduler;
   }
   // Constructors -
 
@@ -71,67 +111,48 @@ public class ReactiveJdbcTemplate extends JdbcTemplate {
   }
 
   /**
-   * Reintegrate exectue method source code to release SQL connection and prepare statement.
-   *
-   * Query using a prepared statement, allowing for a PreparedStatementCreator
-   * and a PreparedStatementSetter. Most other query methods use this method,
-   * but application code will always work with either a creator or a setter.
+   * Open a cursor on prepared statement query.<br>
+   * Connection, statement and result set have to be released through {@link #closeCursor(ResultSetCursor, PreparedStatementCreator, PreparedStatementSetter)}.
    *
    * @param psc Callback handler that can create a PreparedStatement given a Connection
    * @param pss object that knows how to set values on the prepared statement.
    *            If this is null, the SQL will be assumed to contain no bind parameters.
-   * @param rse object that will extract each row.
    *
-   * @return an arbitrary result Flux, as returned by the RowMapper
+   * @return the opened cursor
    *
    * @throws DataAccessException if there is any problem
    */
-  @Nullable
-  public <T> Flux<T> queryForFlux(final PreparedStatementCreator psc, @Nullable final PreparedStatementSetter pss, final RowMapper<T> rowMapper) throws DataAccessException {
-    Assert.notNull(rowMapper, "RowMapper must not be null");
-    logger.debug("Executing prepared SQL query");
-    Assert.notNull(psc, "PreparedStatementCreator must not be null");
+  private ResultSetCursor openCursor(final PreparedStatementCreator psc, @Nullable final PreparedStatementSetter pss) throws DataAccessException {
     if(logger.isDebugEnabled()) {
       final String sql = getSql(psc);
       logger.debug("Executing prepared SQL statement" + (sql != null ? " [" + sql + "]" : ""));
     }
-
     final Connection con = DataSourceUtils.getConnection(obtainDataSource());
     PreparedStatement ps = null;
     ResultSet rs = null;
+    boolean autoCommit = false;
     try {
-      final PreparedStatement ips = ps = psc.createPreparedStatement(con);
+      // Cursor based fetch (PostgreSQL) is only available outside auto-commit mode
+      if(!DataSourceUtils.isConnectionTransactional(con, getDataSource()) && con.getAutoCommit()) {
+        con.setAutoCommit(false);
+        autoCommit = true;
+      }
+      ps = psc.createPreparedStatement(con);
       applyStatementSettings(ps);
-      Flux<T> result = null;
+      if(getFetchSize() == -1) {
+        ps.setFetchSize(maxFetchSize);
+      }
       if(pss != null) {
         pss.setValues(ps);
       }
-      final ResultSet res = rs = ps.executeQuery(); // Duplicate variable for lambda usage
-      final MutableInteger rowNum = new MutableInteger(0);
-      result = Flux.<T>generate(emitter -> {
-        try {
-          if(res.next()) {
-            emitter.next(rowMapper.mapRow(res, rowNum.addAndGet(1)));
-          } else {
-            emitter.complete();
-          }
-        } catch(final SQLException e) {
-          emitter.error(translateException("Flux.get", getSql(psc), e));
-        }
-      }).doOnTerminate(() -> {
-        JdbcUtils.closeResultSet(res);
-        if(pss instanceof ParameterDisposer) {
-          ((ParameterDisposer)pss).cleanupParameters();
-        }
-        JdbcUtils.closeStatement(ips);
-        DataSourceUtils.releaseConnection(con, getDataSource());
-      });
+      rs = ps.executeQuery();
       handleWarnings(ps);
-      return result;
+      return new ResultSetCursor(con, ps, rs, autoCommit);
     } catch(final SQLException ex) {
       // Release Connection early, to avoid potential connection pool deadlock
       // in the case when the exception translator hasn't been initialized yet.
       JdbcUtils.closeResultSet(rs);
+      restoreAutoCommit(con, autoCommit);
       if(psc instanceof ParameterDisposer) {
         ((ParameterDisposer)psc).cleanupParameters();
       }
@@ -142,6 +163,101 @@ public class ReactiveJdbcTemplate extends JdbcTemplate {
     }
   }
 
+  /**
+   * Release cursor resources
+   *
+   * @param cursor the cursor to close
+   * @param psc Callback handler that has created the PreparedStatement
+   * @param pss object that has set values on the prepared statement
+   */
+  private void closeCursor(final ResultSetCursor cursor, final PreparedStatementCreator psc, @Nullable final PreparedStatementSetter pss) {
+    JdbcUtils.closeResultSet(cursor.rs);
+    if(pss instanceof ParameterDisposer) {
+      ((ParameterDisposer)pss).cleanupParameters();
+    }
+    if(psc instanceof ParameterDisposer) {
+      ((ParameterDisposer)psc).cleanupParameters();
+    }
+    JdbcUtils.closeStatement(cursor.ps);
+    restoreAutoCommit(cursor.con, cursor.autoCommit);
+    DataSourceUtils.releaseConnection(cursor.con, getDataSource());
+  }
+
+  /**
+   * Restore auto-commit mode on connection if it has been disabled for streaming.<br>
+   * Restoring auto-commit ends the read transaction.
+   *
+   * @param con the SQL connection
+   * @param autoCommit {@code true} if auto-commit has been disabled, {@code false} otherwise
+   */
+  private void restoreAutoCommit(final Connection con, final boolean autoCommit) {
+    if(autoCommit) {
+      try {
+        con.setAutoCommit(true);
+      } catch(final SQLException e) {
+        logger.warn("Unable to restore auto-commit mode on connection: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Adjust result set fetch size to the downstream demand
+   *
+   * @param cursor the cursor
+   * @param demand the downstream demand
+   */
+  private void adjustFetchSize(final ResultSetCursor cursor, final long demand) {
+    final int fetchSize = (int)Math.max(1L, Math.min(demand, maxFetchSize));
+    try {
+      cursor.rs.setFetchSize(fetchSize);
+    } catch(final SQLException e) {
+      // Fetch size is only a hint: keep the current one
+      logger.debug("Unable to set fetch size to " + fetchSize + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Query using a prepared statement, allowing for a PreparedStatementCreator
+   * and a PreparedStatementSetter. Most other query methods use this method,
+   * but application code will always work with either a creator or a setter.
+   * <p>Nothing is done until subscription: connection is acquired, query is
+   * executed and result set is iterated lazily on subscription and released on
+   * completion, error or cancellation. If the template has a scheduler, all
+   * these blocking operations are run on it.
+   * <p>Outside of a transaction, auto-commit is disabled during the query so
+   * that the driver can use a cursor instead of loading the whole result. The
+   * fetch size follows the downstream demand up to {@link #getMaxFetchSize()}.
+   *
+   * @param psc Callback handler that can create a PreparedStatement given a Connection
+   * @param pss object that knows how to set values on the prepared statement.
+   *            If this is null, the SQL will be assumed to contain no bind parameters.
+   * @param rse object that will extract each row.
+   *
+   * @return an arbitrary result Flux, as returned by the RowMapper
+   *
+   * @throws DataAccessException if there is any problem
+   */
+  @Nullable
+  public <T> Flux<T> queryForFlux(final PreparedStatementCreator psc, @Nullable final PreparedStatementSetter pss, final RowMapper<T> rowMapper) throws DataAccessException {
+    Assert.notNull(rowMapper, "RowMapper must not be null");
+    Assert.notNull(psc, "PreparedStatementCreator must not be null");
+    logger.debug("Executing prepared SQL query");
+    final Flux<T> result = Flux.using(() -> openCursor(psc, pss),
+                                      cursor -> Flux.<T>generate(emitter -> {
+                                        try {
+                                          if(cursor.rs.next()) {
+                                            emitter.next(rowMapper.mapRow(cursor.rs, cursor.rowNum.addAndGet(1)));
+                                          } else {
+                                            emitter.complete();
+                                          }
+                                        } catch(final SQLException e) {
+                                          emitter.error(translateException("Flux.generate", getSql(psc), e));
+                                        }
+                                      }).doOnRequest(n -> adjustFetchSize(cursor, n)),
+                                      cursor -> closeCursor(cursor, psc, pss));
+    return (scheduler == null) ? result : result.subscribeOn(scheduler);
+  }
+
   /**
    * Query given SQL to create a prepared statement from SQL and a
    * list of arguments to bind to the query, expecting a result list.
@@ -354,103 +470,479 @@ public class ReactiveJdbcTemplate extends JdbcTemplate {
   }
 
   /**
-   * Execute multiple batches using the supplied SQL statement with the collect of supplied arguments.
-   * The arguments' values will be set using the ParameterizedPreparedStatementSetter.
-   * Each batch should be of size indicated in 'batchSize'.
+   * Prepare batch statement
    *
-   * @param sql the SQL statement to execute.
-   * @param batchArgs the List of Object arrays containing the batch of arguments for the query
-   * @param batchSize batch size
-   * @param pss ParameterizedPreparedStatementSetter to use
+   * @param sql the SQL statement to prepare
    *
-   * @throws DataAccessException if there is any problem issuing the update
+   * @return the batch statement
+   *
+   * @throws DataAccessException if there is any problem
    */
-  public <T> void batchUpdate(final String sql,
-                              final Flux<T> batchArgs,
-                              final int batchSize,
-                              final ParameterizedPreparedStatementSetter<T> pss) throws DataAccessException {
+  private BatchStatement openBatch(final String sql) throws DataAccessException {
     if(logger.isDebugEnabled()) {
-      logger.debug("Executing SQL batch update [" + sql + "] with a batch size of " + batchSize);
+      logger.debug("Preparing SQL batch update [" + sql + "]");
     }
-    final MutableInteger num = new MutableInteger(0);
-
-    final PreparedStatementCreator psc = new SimplePreparedStatementCreator(sql);
     final Connection con = DataSourceUtils.getConnection(obtainDataSource());
     PreparedStatement ps = null;
-    boolean batchSuppo = false;
     try {
-      ps = psc.createPreparedStatement(con);
+      ps = con.prepareStatement(sql);
       applyStatementSettings(ps);
-      batchSuppo = JdbcUtils.supportsBatchUpdates(ps.getConnection());
-      if(!batchSuppo) {
+      final boolean batchSupported = JdbcUtils.supportsBatchUpdates(con);
+      if(!batchSupported) {
         logger.warn("JDBC Driver does not support Batch updates; resorting to single statement execution");
       }
-    } catch(final SQLException e) {
-      if(psc instanceof ParameterDisposer) {
-        ((ParameterDisposer)psc).cleanupParameters();
-      }
+      return new BatchStatement(con, ps, batchSupported);
+    } catch(final SQLException ex) {
       JdbcUtils.closeStatement(ps);
       DataSourceUtils.releaseConnection(con, getDataSource());
+      throw translateException("PreparedStatementCallback", sql, ex);
     }
-    final boolean batchSupported = batchSuppo;
-    final PreparedStatement stmt = ps;
-    batchArgs.doOnNext(item -> {
-      try {
-        pss.setValues(stmt, item);
-        final int n = num.addAndGet(1);
-        if(batchSupported) {
-          stmt.addBatch();
-          if(n % batchSize == 0) {
-            if(logger.isDebugEnabled()) {
-              final int batchIdx = (n % batchSize == 0) ? n / batchSize : (n / batchSize) + 1;
-              final int items = n - ((n % batchSize == 0) ? n / batchSize - 1 : (n / batchSize)) * batchSize;
-              logger.debug("Sending SQL batch update #" + batchIdx + " with " + items + " items");
-            }
-            stmt.executeBatch();
-          }
-        } else {
-          stmt.executeUpdate();
+  }
+
+  /**
+   * Execute one batch
+   *
+   * @param sql the SQL statement (for error and log purpose)
+   * @param batch the batch statement
+   * @param items the batch items
+   * @param pss ParameterizedPreparedStatementSetter to use
+   *
+   * @return the number of rows affected by each item of the batch
+   *
+   * @throws DataAccessException if there is any problem issuing the update
+   */
+  private <T> int[] executeBatch(final String sql, final BatchStatement batch, final List<T> items, final ParameterizedPreparedStatementSetter<T> pss) throws DataAccessException {
+    final int batchIdx = batch.batches.addAndGet(1);
+    if(logger.isDebugEnabled()) {
+      logger.debug("Sending SQL batch update #" + batchIdx + " with " + items.size() + " items");
+    }
+    try {
+      final int[] counts;
+      if(batch.batchSupported) {
+        for(final T item : items) {
+          pss.setValues(batch.ps, item);
+          batch.ps.addBatch();
+        }
+        counts = batch.ps.executeBatch();
+      } else {
+        counts = new int[items.size()];
+        for(int i = 0 ; i < counts.length ; ++i) {
+          pss.setValues(batch.ps, items.get(i));
+          counts[i] = batch.ps.executeUpdate();
         }
-      } catch(final SQLException e) {
-        throw translateException("Flux.doOnNext", sql, e);
       }
-    }).doOnComplete(() -> {
-      if(batchSupported) {
-        // Perform last update if not empty
-        final int n = num.get();
-        if(n % batchSize != 0) {
-          if(logger.isDebugEnabled()) {
-            final int batchIdx = (n % batchSize == 0) ? n / batchSize : (n / batchSize) + 1;
-            final int items = n - ((n % batchSize == 0) ? n / batchSize - 1 : (n / batchSize)) * batchSize;
-            logger.debug("Sending SQL batch update #" + batchIdx + " with " + items + " items");
-          }
-          try {
-            stmt.executeBatch();
-          } catch(final SQLException e) {
-            throw translateException("Flux.doOnComplete", sql, e);
-          }
+      handleWarnings(batch.ps);
+      return counts;
+    } catch(final SQLException e) {
+      throw translateException("Flux.buffer", sql, e);
+    }
+  }
+
+  /**
+   * Release batch statement resources
+   *
+   * @param batch the batch statement to close
+   */
+  private void closeBatch(final BatchStatement batch) {
+    JdbcUtils.closeStatement(batch.ps);
+    DataSourceUtils.releaseConnection(batch.con, getDataSource());
+  }
+
+  /**
+   * Execute multiple batches using the supplied SQL statement with the collect of supplied arguments.
+   * The arguments' values will be set using the ParameterizedPreparedStatementSetter.
+   * Each batch should be of size indicated in 'batchSize'.
+   * <p>Nothing is done until subscription. Arguments are requested one batch
+   * at a time: next batch is requested only when the previous one has been
+   * executed. If the template has a scheduler, batches are executed on it.
+   * Errors are propagated to the subscriber.
+   *
+   * @param sql the SQL statement to execute.
+   * @param batchArgs the arguments flux
+   * @param batchSize batch size
+   * @param pss ParameterizedPreparedStatementSetter to use
+   *
+   * @return the number of rows affected by each item of each executed batch
+   */
+  public <T> Flux<int[]> batchUpdateForFlux(final String sql,
+                                            final Flux<T> batchArgs,
+                                            final int batchSize,
+                                            final ParameterizedPreparedStatementSetter<T> pss) {
+    Assert.notNull(sql, "SQL must not be null");
+    Assert.isTrue(batchSize > 0, "Batch size must be positive");
+    if(logger.isDebugEnabled()) {
+      logger.debug("Executing SQL batch update [" + sql + "] with a batch size of " + batchSize);
+    }
+    final Flux<List<T>> batches = (scheduler == null) ? batchArgs.buffer(batchSize) : batchArgs.buffer(batchSize).publishOn(scheduler, 1);
+    final Flux<int[]> result = Flux.using(() -> openBatch(sql),
+                                          batch -> batches.map(items -> executeBatch(sql, batch, items, pss)),
+                                          this::closeBatch);
+    return (scheduler == null) ? result : result.subscribeOn(scheduler);
+  }
+
+  /**
+   * Execute multiple batches using the supplied SQL statement with the collect of supplied arguments.
+   * The arguments' values will be set using the ParameterizedPreparedStatementSetter.
+   * Each batch should be of size indicated in 'batchSize'.
+   *
+   * @param sql the SQL statement to execute.
+   * @param batchArgs the arguments flux
+   * @param batchSize batch size
+   * @param pss ParameterizedPreparedStatementSetter to use
+   *
+   * @return the total number of affected rows
+   *
+   * @see #batchUpdateForFlux(String, Flux, int, ParameterizedPreparedStatementSetter)
+   */
+  public <T> Mono<Integer> batchUpdateForMono(final String sql,
+                                              final Flux<T> batchArgs,
+                                              final int batchSize,
+                                              final ParameterizedPreparedStatementSetter<T> pss) {
+    return batchUpdateForFlux(sql, batchArgs, batchSize, pss).reduce(0, ReactiveJdbcTemplate::sumCounts);
+  }
+
+  /**
+   * Execute multiple batches in parallel using the supplied SQL statement with the collect of supplied arguments.
+   * The arguments' values will be set using the ParameterizedPreparedStatementSetter.
+   * Each batch should be of size indicated in 'batchSize'.
+   * <p>Up to 'parallelism' batches are executed at the same time, each one on
+   * its own connection. Arguments are requested for at most 'parallelism'
+   * batches at once. Batch results are emitted in arguments order. Batches are
+   * executed in parallel only if the template has a scheduler.
+   * <p>Each batch is committed on its own: there is no global transaction.
+   *
+   * @param sql the SQL statement to execute.
+   * @param batchArgs the arguments flux
+   * @param parallelism the maximum number of batches executed at the same time
+   * @param batchSize batch size
+   * @param pss ParameterizedPreparedStatementSetter to use
+   *
+   * @return the number of rows affected by each item of each executed batch
+   */
+  public <T> Flux<int[]> parallelBatchUpdateForFlux(final String sql,
+                                                    final Flux<T> batchArgs,
+                                                    final int parallelism,
+                                                    final int batchSize,
+                                                    final ParameterizedPreparedStatementSetter<T> pss) {
+    Assert.notNull(sql, "SQL must not be null");
+    Assert.isTrue(parallelism > 0, "Parallelism must be positive");
+    Assert.isTrue(batchSize > 0, "Batch size must be positive");
+    if(logger.isDebugEnabled()) {
+      logger.debug("Executing SQL batch update [" + sql + "] with a batch size of " + batchSize + " on " + parallelism + " connections");
+    }
+    return batchArgs.buffer(batchSize).flatMapSequential(items -> {
+      final Mono<int[]> batch = Mono.using(() -> openBatch(sql),
+                                           stmt -> Mono.fromCallable(() -> executeBatch(sql, stmt, items, pss)),
+                                           this::closeBatch);
+      return (scheduler == null) ? batch : batch.subscribeOn(scheduler);
+    }, parallelism, 1);
+  }
+
+  /**
+   * Execute multiple batches in parallel using the supplied SQL statement with the collect of supplied arguments.
+   *
+   * @param sql the SQL statement to execute.
+   * @param batchArgs the arguments flux
+   * @param parallelism the maximum number of batches executed at the same time
+   * @param batchSize batch size
+   * @param pss ParameterizedPreparedStatementSetter to use
+   *
+   * @return the total number of affected rows
+   *
+   * @see #parallelBatchUpdateForFlux(String, Flux, int, int, ParameterizedPreparedStatementSetter)
+   */
+  public <T> Mono<Integer> parallelBatchUpdateForMono(final String sql,
+                                                      final Flux<T> batchArgs,
+                                                      final int parallelism,
+                                                      final int batchSize,
+                                                      final ParameterizedPreparedStatementSetter<T> pss) {
+    return parallelBatchUpdateForFlux(sql, batchArgs, parallelism, batchSize, pss).reduce(0, ReactiveJdbcTemplate::sumCounts);
+  }
+
+  /**
+   * Check if JDBC driver supports PostgreSQL COPY protocol.<br>
+   * Result is computed on first call.
+   *
+   * @return {@code true} if COPY is supported, {@code false} otherwise
+   *
+   * @throws DataAccessException if connection can not be retrieved
+   */
+  public boolean isCopySupported() throws DataAccessException {
+    if(copySupported == null) {
+      copySupported = execute((ConnectionCallback<Boolean>)con -> con.isWrapperFor(PGConnection.class));
+      if(logger.isDebugEnabled()) {
+        logger.debug("COPY protocol is " + (copySupported ? "" : "not ") + "supported by JDBC driver");
+      }
+    }
+    return copySupported;
+  }
+
+  /**
+   * Append value to CSV line
+   *
+   * @param line the CSV line
+   * @param value the value to append
+   */
+  private static void appendCsv(final StringBuilder line, @Nullable final Object value) {
+    // Unquoted empty value is NULL
+    if(value != null) {
+      line.append('"');
+      final String str = value.toString();
+      for(int i = 0 ; i < str.length() ; ++i) {
+        final char c = str.charAt(i);
+        if(c == '"') {
+          line.append('"');
         }
+        line.append(c);
       }
-    }).doFinally(t -> {
-      if(psc instanceof ParameterDisposer) {
-        ((ParameterDisposer)psc).cleanupParameters();
+      line.append('"');
+    }
+  }
+
+  /**
+   * Send rows to COPY stream
+   *
+   * @param session the COPY session
+   * @param rows the rows to send
+   * @param values the row values extractor
+   *
+   * @throws SQLException if there is any problem
+   */
+  private static <T> void writeCopy(final CopySession session, final List<T> rows, final Function<T,Object[]> values) throws SQLException {
+    final StringBuilder buffer = new StringBuilder(rows.size() * 128);
+    for(final T row : rows) {
+      final Object[] vals = values.apply(row);
+      for(int i = 0 ; i < vals.length ; ++i) {
+        if(i != 0) {
+          buffer.append(',');
+        }
+        appendCsv(buffer, vals[i]);
       }
-      JdbcUtils.closeStatement(stmt);
+      buffer.append('\n');
+    }
+    session.write(buffer.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Open COPY session
+   *
+   * @param sql the COPY request
+   *
+   * @return the COPY session
+   *
+   * @throws DataAccessException if COPY operation can not be started
+   */
+  private CopySession openCopy(final String sql) throws DataAccessException {
+    final Connection con = DataSourceUtils.getConnection(obtainDataSource());
+    try {
+      return new CopySession(con, getDataSource(), con.unwrap(PGConnection.class).getCopyAPI().copyIn(sql));
+    } catch(final SQLException e) {
       DataSourceUtils.releaseConnection(con, getDataSource());
-    }).subscribe();
+      throw translateException("CopyManager.copyIn", sql, e);
+    }
+  }
+
+  /**
+   * Close COPY session: cancel COPY operation if it is still active and
+   * release connection
+   *
+   * @param session the COPY session
+   */
+  private void closeCopy(final CopySession session) {
     try {
-      handleWarnings(ps);
+      session.close();
     } catch(final SQLException e) {
-      if(psc instanceof ParameterDisposer) {
-        ((ParameterDisposer)psc).cleanupParameters();
+      logger.warn("Unable to cancel COPY operation: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Bulk insert rows in table.<br>
+   * With PostgreSQL, rows are streamed through a CSV {@code COPY ... FROM STDIN}
+   * operation: rows are written to the COPY stream by chunks of 'bufferSize'
+   * rows and next chunk is requested only when previous one has been written.
+   * Other drivers fall back to {@link #batchUpdateForMono(String, Flux, int, ParameterizedPreparedStatementSetter)}
+   * with 'bufferSize' as batch size.
+   *
+   * @param table the table name
+   * @param columns the columns to fill
+   * @param rows the rows to insert
+   * @param bufferSize the number of rows sent at once
+   * @param values the row values extractor (in columns order)
+   *
+   * @return the number of inserted rows
+   */
+  public <T> Mono<Long> copyIn(final String table,
+                               final String[] columns,
+                               final Flux<T> rows,
+                               final int bufferSize,
+                               final Function<T,Object[]> values) {
+    Assert.notEmpty(columns, "Columns must not be empty");
+    Assert.isTrue(bufferSize > 0, "Buffer size must be positive");
+    final String cols = String.join(",", columns);
+    final Mono<Long> result = Mono.defer(() -> {
+      if(!isCopySupported()) {
+        final String sql = "INSERT INTO " + table + " (" + cols + ") VALUES (" + String.join(",", Collections.nCopies(columns.length, "?")) + ")";
+        return batchUpdateForMono(sql, rows, bufferSize, (ps, row) -> {
+          final Object[] vals = values.apply(row);
+          for(int i = 0 ; i < vals.length ; ++i) {
+            StatementCreatorUtils.setParameterValue(ps, i + 1, SqlTypeValue.TYPE_UNKNOWN, vals[i]);
+          }
+        }).map(Integer::longValue);
       }
-      JdbcUtils.closeStatement(stmt);
-      DataSourceUtils.releaseConnection(con, getDataSource());
+      final String sql = "COPY " + table + " (" + cols + ") FROM STDIN WITH (FORMAT csv)";
+      if(logger.isDebugEnabled()) {
+        logger.debug("Executing SQL COPY [" + sql + "] with a buffer size of " + bufferSize);
+      }
+      final Flux<List<T>> chunks = (scheduler == null) ? rows.buffer(bufferSize) : rows.buffer(bufferSize).publishOn(scheduler, 1);
+      // Cancellation may be signalled while a chunk is written: session is
+      // closed on JDBC scheduler once the write in progress has returned
+      final Function<CopySession,Mono<Void>> onCancel = (scheduler == null)
+          ? session -> Mono.fromRunnable(() -> closeCopy(session))
+          : session -> Mono.<Void>fromRunnable(() -> closeCopy(session)).subscribeOn(scheduler);
+      return Mono.usingWhen(Mono.fromCallable(() -> openCopy(sql)),
+                            session -> chunks.doOnNext(chunk -> {
+                              try {
+                                writeCopy(session, chunk, values);
+                              } catch(final SQLException e) {
+                                throw translateException("CopyIn.writeToCopy", sql, e);
+                              }
+                            }).then(Mono.fromCallable(session::end))
+                                .onErrorMap(SQLException.class, e -> translateException("CopyIn.endCopy", sql, e)),
+                            session -> Mono.fromRunnable(() -> closeCopy(session)),
+                            session -> Mono.fromRunnable(() -> closeCopy(session)),
+                            onCancel);
+    });
+    return (scheduler == null) ? result : result.subscribeOn(scheduler);
+  }
+
+  /**
+   * Rollback connection transaction
+   *
+   * @param con the SQL connection
+   */
+  private void rollback(final Connection con) {
+    try {
+      con.rollback();
+    } catch(final SQLException e) {
+      logger.warn("Unable to rollback transaction: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Execute action in a transaction on connection.<br>
+   * If the connection is already bound to a Spring managed transaction, the
+   * transaction is left to its owner.
+   *
+   * @param con the connection
+   * @param action the callback object that specifies the action
+   *
+   * @return the result object returned by the action
+   *
+   * @throws SQLException any SQL error (transaction has been rolled back)
+   */
+  private <T> T doInTransaction(final Connection con, final ConnectionCallback<T> action) throws SQLException {
+    if(DataSourceUtils.isConnectionTransactional(con, getDataSource())) {
+      return action.doInConnection(con);
+    }
+    final boolean autoCommit = con.getAutoCommit();
+    if(autoCommit) {
+      con.setAutoCommit(false);
+    }
+    try {
+      final T res = action.doInConnection(con);
+      con.commit();
+      return res;
+    } catch(final SQLException | RuntimeException e) {
+      rollback(con);
+      throw e;
+    } finally {
+      restoreAutoCommit(con, autoCommit);
+    }
+  }
+
+  /**
+   * Execute a JDBC data access operation in a transaction on one connection.<br>
+   * Nothing is done until subscription. Transaction is committed before result
+   * is emitted and rolled back on error. If the template has a scheduler, the
+   * operation is run on it.
+   * <p>If the connection is already bound to a Spring managed transaction, the
+   * transaction is left to its owner.
+   *
+   * @param action the callback object that specifies the action
+   *
+   * @return the result object returned by the action, empty if {@code null}
+   */
+  public <T> Mono<T> executeInTransaction(final ConnectionCallback<T> action) {
+    Assert.notNull(action, "Callback object must not be null");
+    final Mono<T> result = Mono.using(() -> DataSourceUtils.getConnection(obtainDataSource()),
+                                      con -> Mono.fromCallable(() -> doInTransaction(con, action))
+                                      .onErrorMap(SQLException.class, e -> translateException("ConnectionCallback", getSql(action), e)),
+                                      con -> DataSourceUtils.releaseConnection(con, getDataSource()));
+    return (scheduler == null) ? result : result.subscribeOn(scheduler);
+  }
+
+  /**
+   * Execute a JDBC data access operation in a transaction on one connection
+   * in the caller thread (the template scheduler is not used).<br>
+   * Transaction is committed before result is returned and rolled back on
+   * error.
+   *
+   * @param action the callback object that specifies the action
+   *
+   * @return the result object returned by the action
+   *
+   * @throws DataAccessException if there is any problem
+   *
+   * @see #executeInTransaction(ConnectionCallback)
+   */
+  @Nullable
+  public <T> T executeInTransactionBlocking(final ConnectionCallback<T> action) throws DataAccessException {
+    Assert.notNull(action, "Callback object must not be null");
+    return execute((ConnectionCallback<T>)con -> doInTransaction(con, action));
+  }
+
+  /**
+   * Add batch update counts to total
+   *
+   * @param total the current total
+   * @param counts the batch update counts
+   *
+   * @return the new total
+   */
+  private static int sumCounts(final int total, final int[] counts) {
+    int sum = total;
+    for(final int count : counts) {
+      // Some drivers do not report the number of affected rows
+      sum += (count == Statement.SUCCESS_NO_INFO) ? 1 : count;
     }
+    return sum;
   }
   // Methods -
 
 
+  // Accessors +
+  /**
+   * Maximum fetch size for streamed queries getter
+   *
+   * @return the maximum fetch size
+   */
+  public int getMaxFetchSize() {
+    return maxFetchSize;
+  }
+
+  /**
+   * Maximum fetch size for streamed queries setter
+   *
+   * @param maxFetchSize the maximum fetch size to set
+   */
+  public void setMaxFetchSize(final int maxFetchSize) {
+    Assert.isTrue(maxFetchSize > 0, "Maximum fetch size must be positive");
+    this.maxFetchSize = maxFetchSize;
+  }
+  // Accessors -
+
+
   // Classes +
   /**
    * Mutable integer ...
@@ -515,6 +1007,169 @@ public class ReactiveJdbcTemplate extends JdbcTemplate {
 
   }
 
+  /**
+   * Opened result set with its statement and connection
+   *
+   * @author Vincent Lachenal
+   */
+  private static class ResultSetCursor {
+
+    /** SQL connection */
+    private final Connection con;
+
+    /** Prepared statement */
+    private final PreparedStatement ps;
+
+    /** Result set */
+    private final ResultSet rs;
+
+    /** Auto-commit has been disabled for streaming */
+    private final boolean autoCommit;
+
+    /** Current row number */
+    private final MutableInteger rowNum;
+
+    /**
+     * {@link ResultSetCursor} constructor
+     *
+     * @param con the SQL connection
+     * @param ps the prepared statement
+     * @param rs the result set
+     * @param autoCommit {@code true} if auto-commit has been disabled for streaming
+     */
+    private ResultSetCursor(final Connection con, final PreparedStatement ps, final ResultSet rs, final boolean autoCommit) {
+      this.con = con;
+      this.ps = ps;
+      this.rs = rs;
+      this.autoCommit = autoCommit;
+      rowNum = new MutableInteger(0);
+    }
+
+  }
+
+  /**
+   * Prepared batch statement with its connection
+   *
+   * @author Vincent Lachenal
+   */
+  private static class BatchStatement {
+
+    /** SQL connection */
+    private final Connection con;
+
+    /** Prepared statement */
+    private final PreparedStatement ps;
+
+    /** JDBC driver supports batch updates */
+    private final boolean batchSupported;
+
+    /** Number of executed batches */
+    private final MutableInteger batches;
+
+    /**
+     * {@link BatchStatement} constructor
+     *
+     * @param con the SQL connection
+     * @param ps the prepared statement
+     * @param batchSupported {@code true} if JDBC driver supports batch updates, {@code false} otherwise
+     */
+    private BatchStatement(final Connection con, final PreparedStatement ps, final boolean batchSupported) {
+      this.con = con;
+      this.ps = ps;
+      this.batchSupported = batchSupported;
+      batches = new MutableInteger(0);
+    }
+
+  }
+
+  /**
+   * COPY operation with its connection.<br>
+   * Writes, end and cancellation are serialized: cancellation may be signalled
+   * from any thread while a chunk is written on JDBC scheduler, COPY
+   * operation is then cancelled and connection released only once the write
+   * has returned.
+   *
+   * @author Vincent Lachenal
+   */
+  static class CopySession {
+
+    /** SQL connection */
+    private final Connection con;
+
+    /** Data source the connection has been obtained from */
+    @Nullable
+    private final DataSource dataSource;
+
+    /** COPY operation */
+    private final CopyIn copy;
+
+    /** Session has been closed */
+    private boolean closed;
+
+    /**
+     * {@link CopySession} constructor
+     *
+     * @param con the SQL connection
+     * @param dataSource the data source the connection has been obtained from
+     * @param copy the COPY operation
+     */
+    CopySession(final Connection con, @Nullable final DataSource dataSource, final CopyIn copy) {
+      this.con = con;
+      this.dataSource = dataSource;
+      this.copy = copy;
+      closed = false;
+    }
+
+    /**
+     * Send bytes to COPY stream
+     *
+     * @param bytes the bytes to send
+     *
+     * @throws SQLException if session has been closed or on any other problem
+     */
+    synchronized void write(final byte[] bytes) throws SQLException {
+      if(closed) {
+        throw new SQLException("COPY operation has been cancelled");
+      }
+      copy.writeToCopy(bytes, 0, bytes.length);
+    }
+
+    /**
+     * End COPY operation
+     *
+     * @return the number of copied rows
+     *
+     * @throws SQLException if session has been closed or on any other problem
+     */
+    synchronized long end() throws SQLException {
+      if(closed) {
+        throw new SQLException("COPY operation has been cancelled");
+      }
+      return copy.endCopy();
+    }
+
+    /**
+     * Cancel COPY operation if it is still active and release connection.<br>
+     * Connection is released even if cancellation fails.
+     *
+     * @throws SQLException if COPY operation can not be cancelled
+     */
+    synchronized void close() throws SQLException {
+      if(closed) {
+        return;
+      }
+      closed = true;
+      try {
+        if(copy.isActive()) {
+          copy.cancelCopy();
+        }
+      } finally {
+        DataSourceUtils.releaseConnection(con, dataSource);
+      }
+    }
+
+  }
+
   /**
    * Copy of JdbcTemplte
    */
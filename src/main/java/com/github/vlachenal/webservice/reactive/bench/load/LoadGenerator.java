@@ -0,0 +1,627 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.load;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vlachenal.webservice.reactive.bench.cache.LatencyHistograms;
+import com.github.vlachenal.webservice.reactive.bench.dao.Persistence;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Address;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.ClientCall;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Mapper;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Phone;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.TestSuite;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.ByteBufMono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
+import reactor.netty.resources.ConnectionProvider;
+
+
+/**
+ * Open model load generator.<br>
+ * Requests are sent at a constant arrival rate: request {@code i} is
+ * scheduled at {@code t0 + (i + 1) / rate} whatever the number of pending
+ * requests, so a slow server does not slow the load down. Client latencies
+ * are measured from the scheduled start (coordinated omission correction):
+ * a request sent late because of client or server stall is accounted with its
+ * waiting time. Uncorrected latencies (from actual send) are reported too.<br>
+ * Measured calls are sent with {@code request_seq} and {@code mapper} headers
+ * and are posted back as a test suite, which server consolidates with its own
+ * timings. Every request is sent with {@code persistence} header.
+ * <p>Arguments are {@code name=value} pairs (see {@link Options}), for example:
+ * {@code gradle loadTest -Pload="rate=500 duration=60 mapper=DIRECT"}
+ *
+ * @author Vincent Lachenal
+ */
+public class LoadGenerator {
+
+  // Attributes +
+  /** {@link LoadGenerator} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+
+  /** Number of significant value digits */
+  private static final int DIGITS = 3;
+
+  /** Error message maximum length (database column size) */
+  private static final int ERR_MSG_LENGTH = 512;
+
+  /** Hardware description maximum length (database column size) */
+  private static final int HARDWARE_LENGTH = 64;
+
+  /** Number of concurrent requests when creating customers before load */
+  private static final int SEED_CONCURRENCY = 8;
+
+  /** JSON mapper */
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  /** Options */
+  private final Options opts;
+
+  /** Methods */
+  private final String[] methods;
+
+  /** Methods cumulative weights */
+  private final int[] weights;
+
+  /** Latencies by method */
+  private final Map<String,MethodLatency> latencies = new LinkedHashMap<>();
+
+  /** Measured calls */
+  private final Queue<ClientCall> calls = new ConcurrentLinkedQueue<>();
+
+  /** Request sequence */
+  private final AtomicInteger sequence = new AtomicInteger(0);
+
+  /** Customer creation request body */
+  private final String customer;
+
+  /** Existing customer identifiers */
+  private List<String> ids;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link LoadGenerator} constructor
+   *
+   * @param opts the options
+   *
+   * @throws IllegalArgumentException invalid options
+   */
+  public LoadGenerator(final Options opts) {
+    if(opts.rate <= 0 || opts.duration <= 0 || opts.warmup < 0 || opts.customers <= 0) {
+      throw new IllegalArgumentException("Rate, duration and customers have to be positive, warm-up can not be negative");
+    }
+    this.opts = opts;
+    final String[] mix = opts.mix.split(",");
+    methods = new String[mix.length];
+    weights = new int[mix.length];
+    int total = 0;
+    for(int i = 0 ; i < mix.length ; ++i) {
+      final String[] weight = mix[i].trim().split(":");
+      methods[i] = weight[0];
+      if(!Arrays.asList("get", "create", "list").contains(methods[i]) || weight.length != 2) {
+        throw new IllegalArgumentException("Invalid method mix " + mix[i] + ": expected get, create or list with its weight (get:80)");
+      }
+      total += Integer.parseInt(weight[1]);
+      weights[i] = total;
+      latencies.put(methods[i], new MethodLatency());
+    }
+    customer = json(customer());
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Serialize object to JSON
+   *
+   * @param obj the object
+   *
+   * @return the JSON string
+   */
+  private static String json(final Object obj) {
+    try {
+      return JSON.writeValueAsString(obj);
+    } catch(final JsonProcessingException e) {
+      throw new IllegalStateException("Unable to serialize " + obj.getClass().getSimpleName() + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Build customer to create
+   *
+   * @return the customer
+   */
+  private static Customer customer() {
+    final Customer cust = new Customer();
+    cust.setFirstName("Chuck");
+    cust.setLastName("Norris");
+    cust.setEmail("chuck.norris@yopmail.com");
+    cust.setBirthDate(new Date(0L));
+    final Address address = new Address();
+    address.setLines(Arrays.asList("1 rue de Rivoli"));
+    address.setZipCode("75000");
+    address.setCity("Paris");
+    address.setCountry("France");
+    cust.setAddress(address);
+    final Phone landline = new Phone();
+    landline.setType(Phone.Type.LANDLINE);
+    landline.setNumber("+33123456789");
+    final Phone mobile = new Phone();
+    mobile.setType(Phone.Type.MOBILE);
+    mobile.setNumber("+33612345678");
+    cust.setPhones(Arrays.asList(landline, mobile));
+    return cust;
+  }
+
+  /**
+   * Get CPU model
+   *
+   * @return the CPU model from {@code /proc/cpuinfo} if available, number of processors and architecture otherwise
+   */
+  private static String cpu() {
+    try(final Stream<String> lines = Files.lines(Paths.get("/proc/cpuinfo"))) {
+      final String model = lines.filter(line -> line.startsWith("model name")).map(line -> line.substring(line.indexOf(':') + 1).trim()).findFirst()
+          .orElseThrow(() -> new IOException("No model name"));
+      return (model.length() > HARDWARE_LENGTH) ? model.substring(0, HARDWARE_LENGTH) : model;
+    } catch(final IOException | RuntimeException e) {
+      return Runtime.getRuntime().availableProcessors() + " x " + System.getProperty("os.arch");
+    }
+  }
+
+  /**
+   * Get physical memory
+   *
+   * @return the physical memory in GB
+   */
+  private static String memory() {
+    final long bytes = ((com.sun.management.OperatingSystemMXBean)ManagementFactory.getOperatingSystemMXBean()).getTotalPhysicalMemorySize();
+    return Math.round(bytes / (1024.0 * 1024.0 * 1024.0)) + "GB";
+  }
+
+  /**
+   * Pick random method according to mix
+   *
+   * @return the method
+   */
+  private String pick() {
+    final int val = ThreadLocalRandom.current().nextInt(weights[weights.length - 1]);
+    for(int i = 0 ; i < weights.length ; ++i) {
+      if(val < weights[i]) {
+        return methods[i];
+      }
+    }
+    return methods[methods.length - 1];
+  }
+
+  /**
+   * Send customer request
+   *
+   * @param http the HTTP client
+   * @param method the method
+   * @param seq the request sequence ({@code -1} if call is not measured)
+   *
+   * @return the response status and body
+   */
+  private Mono<Response> send(final HttpClient http, final String method, final int seq) {
+    final HttpClient client = http.headers(h -> {
+      h.set("mapper", opts.mapper.name().toLowerCase());
+      if(seq != -1) {
+        h.set("request_seq", seq);
+      }
+    });
+    switch(method) {
+      case "get":
+        return client.headers(h -> h.set(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .get().uri("/" + opts.protocol + "/customer/" + ids.get(ThreadLocalRandom.current().nextInt(ids.size())))
+            .responseSingle(Response::of);
+      case "create":
+        return client.headers(h -> h.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_UTF8_VALUE).set(HttpHeaders.ACCEPT, MediaType.TEXT_PLAIN_VALUE))
+            .post().uri("/" + opts.protocol + "/customer").send(ByteBufFlux.fromString(Mono.just(customer)))
+            .responseSingle(Response::of);
+      default:
+        return client.headers(h -> h.set(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .get().uri("/" + opts.protocol + "/customer")
+            .responseSingle(Response::of);
+    }
+  }
+
+  /**
+   * Send scheduled call and record its latency
+   *
+   * @param http the HTTP client
+   * @param scheduled the scheduled start in ns
+   * @param measured {@code true} to record call, {@code false} for warm-up calls
+   *
+   * @return the completion signal (errors are recorded, not propagated)
+   */
+  private Mono<Void> call(final HttpClient http, final long scheduled, final boolean measured) {
+    final String method = pick();
+    final int seq = measured ? sequence.getAndIncrement() : -1;
+    final long start = System.nanoTime();
+    // Ticks may fire slightly ahead of schedule: latency is never measured from a future instant
+    final long from = Math.min(scheduled, start);
+    return send(http, method, seq)
+        .onErrorResume(e -> Mono.just(new Response(-1, e.getClass().getSimpleName() + ": " + e.getMessage())))
+        .doOnNext(res -> {
+          final long end = System.nanoTime();
+          if(!measured) {
+            return;
+          }
+          final MethodLatency latency = latencies.get(method);
+          latency.corrected.recordValue(end - from);
+          latency.uncorrected.recordValue(end - start);
+          final ClientCall call = new ClientCall();
+          call.setRequestSeq(seq);
+          call.setProtocol(opts.persistence.protocol(opts.protocol));
+          call.setMethod(method);
+          call.setClientStart(from);
+          call.setClientEnd(end);
+          call.setOk(res.status >= 200 && res.status < 300);
+          if(!call.isOk()) {
+            final String msg = (res.status == -1) ? res.body : ("HTTP " + res.status + ": " + res.body);
+            call.setErrMsg((msg.length() > ERR_MSG_LENGTH) ? msg.substring(0, ERR_MSG_LENGTH) : msg);
+          }
+          calls.add(call);
+        }).then();
+  }
+
+  /**
+   * Send calls at constant arrival rate
+   *
+   * @param http the HTTP client
+   * @param ticker the scheduler which triggers calls
+   * @param seconds the phase duration in seconds
+   * @param measured {@code true} to record calls, {@code false} for warm-up phase
+   *
+   * @return the completion signal, once every call has completed
+   */
+  private Mono<Void> phase(final HttpClient http, final Scheduler ticker, final int seconds, final boolean measured) {
+    final long period = TimeUnit.SECONDS.toNanos(1) / opts.rate;
+    final long total = (long)seconds * opts.rate;
+    // Flux.interval has a millisecond resolution: ticks are scheduled at fixed rate in nanoseconds instead
+    final Flux<Long> arrivals = Flux.create(sink -> {
+      final long t0 = System.nanoTime();
+      final AtomicLong tick = new AtomicLong(0L);
+      sink.onDispose(ticker.schedulePeriodically(() -> {
+        final long idx = tick.getAndIncrement();
+        if(idx < total) {
+          sink.next(t0 + (idx + 1) * period);
+        }
+        if(idx + 1 >= total) {
+          sink.complete();
+        }
+      }, period, period, TimeUnit.NANOSECONDS));
+    }, FluxSink.OverflowStrategy.BUFFER);
+    // Pending calls are not bounded: arrivals never wait for responses
+    return arrivals.flatMap(scheduled -> call(http, scheduled, measured), Integer.MAX_VALUE).then();
+  }
+
+  /**
+   * Create customers used by get requests
+   *
+   * @param http the HTTP client
+   *
+   * @return the created customers' identifiers
+   */
+  private Mono<List<String>> seed(final HttpClient http) {
+    return Flux.range(0, opts.customers)
+        .flatMap(i -> send(http, "create", -1), SEED_CONCURRENCY)
+        .map(res -> {
+          if(res.status != 201) {
+            throw new IllegalStateException("Unable to create customer: HTTP " + res.status + " " + res.body);
+          }
+          return res.body;
+        }).collectList();
+  }
+
+  /**
+   * Post test suite and its calls
+   *
+   * @param http the HTTP client
+   *
+   * @return the test suite identifier
+   */
+  private Mono<String> report(final HttpClient http) {
+    final TestSuite suite = new TestSuite();
+    suite.setNbThread(1);
+    suite.setCpu(cpu());
+    suite.setMemory(memory());
+    suite.setJvm(System.getProperty("java.version"));
+    suite.setVendor(System.getProperty("java.vendor"));
+    suite.setOsFamily(System.getProperty("os.name"));
+    suite.setOsVersion(System.getProperty("os.version"));
+    suite.setProtocol(opts.persistence.protocol(opts.protocol));
+    suite.setMapper(opts.mapper);
+    suite.setComment("Open model: " + opts.rate + " req/s during " + opts.duration + "s (" + opts.mix + ")"
+        + (opts.comment.isEmpty() ? "" : " - " + opts.comment));
+    final HttpClient text = http.headers(h -> h.set(HttpHeaders.ACCEPT, MediaType.TEXT_PLAIN_VALUE));
+    return text.headers(h -> h.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_UTF8_VALUE))
+        .post().uri("/" + opts.protocol + "/stats").send(ByteBufFlux.fromString(Mono.just(json(suite))))
+        .responseSingle(Response::of)
+        .flatMap(res -> {
+          if(res.status != 201) {
+            return Mono.error(new IllegalStateException("Unable to create test suite: HTTP " + res.status + " " + res.body));
+          }
+          // Calls are streamed to server: one JSON object per line
+          return text.headers(h -> h.set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_STREAM_JSON_VALUE))
+              .post().uri("/" + opts.protocol + "/stats/" + res.body + "/calls")
+              .send(ByteBufFlux.fromString(Flux.fromIterable(calls).map(call -> json(call) + '\n')))
+              .responseSingle(Response::of)
+              .flatMap(added -> (added.status == 200) ? Mono.just(res.body)
+                  : Mono.error(new IllegalStateException("Unable to add test suite calls: HTTP " + added.status + " " + added.body)));
+        });
+  }
+
+  /**
+   * Run load: create customers, send warm-up calls, send measured calls
+   * and post results.<br>
+   * Server statistics cache is purged before measured calls.
+   *
+   * @return the test suite identifier
+   */
+  public String run() {
+    final ConnectionProvider pool = ConnectionProvider.elastic("load");
+    final Scheduler ticker = Schedulers.newSingle("load-ticker");
+    try {
+      final HttpClient http = HttpClient.create(pool).baseUrl(opts.url)
+          .headers(h -> h.set("persistence", opts.persistence.name().toLowerCase(Locale.ROOT)));
+      LOG.info("Create {} customers", opts.customers);
+      ids = seed(http).block();
+      if(opts.warmup > 0) {
+        LOG.info("Warm up during {}s at {} req/s", opts.warmup, opts.rate);
+        phase(http, ticker, opts.warmup, false).block();
+      }
+      http.delete().uri("/" + opts.protocol + "/stats").responseSingle(Response::of).block();
+      LOG.info("Measure during {}s at {} req/s", opts.duration, opts.rate);
+      final long start = System.nanoTime();
+      phase(http, ticker, opts.duration, true).block();
+      final long elapsed = System.nanoTime() - start;
+      LOG.info("{} calls in {}ms (achieved rate: {} req/s)", calls.size(), TimeUnit.NANOSECONDS.toMillis(elapsed),
+               calls.size() * TimeUnit.SECONDS.toNanos(1) / Math.max(elapsed, 1L));
+      latencies.forEach((method, latency) -> {
+        LOG.info("{} corrected latencies (ns): {}", method, LatencyHistograms.percentiles(latency.corrected.getIntervalHistogram()));
+        LOG.info("{} uncorrected latencies (ns): {}", method, LatencyHistograms.percentiles(latency.uncorrected.getIntervalHistogram()));
+      });
+      final String id = report(http).block();
+      LOG.info("Test suite {} has been created", id);
+      final Response summary = http.headers(h -> h.set(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_UTF8_VALUE))
+          .get().uri("/webflux/stats/" + id + "/summary").responseSingle(Response::of).block();
+      LOG.info("Test suite summary: {}", summary.body);
+      return id;
+    } finally {
+      ticker.dispose();
+      pool.dispose();
+    }
+  }
+
+  /**
+   * Load generator entry point
+   *
+   * @param args the options as {@code name=value} pairs
+   */
+  public static void main(final String[] args) {
+    // Outside of Spring Boot application, default logging configuration is DEBUG for everything (Netty included)
+    LoggingSystem.get(LoadGenerator.class.getClassLoader()).setLogLevel(LoggingSystem.ROOT_LOGGER_NAME, LogLevel.INFO);
+    new LoadGenerator(Options.parse(args)).run();
+  }
+  // Methods -
+
+
+  // Classes +
+  /**
+   * Load generator options
+   *
+   * @author Vincent Lachenal
+   */
+  public static class Options {
+
+    // Attributes +
+    /** Server base URL */
+    private String url = "http://localhost:8080";
+
+    /**
+     * Protocol (routes prefix): {@code webflux}, {@code blocking} (platform
+     * threads pool baseline) or {@code vthread} (virtual threads, server has to
+     * run on Java 21+ with {@code vthread} profile)
+     */
+    private String protocol = "webflux";
+
+    /**
+     * Persistence ({@code r2dbc} is only available with {@code webflux} protocol).<br>
+     * {@code r2dbc} uses embedded H2 in the event loop: results are not an
+     * apples-to-apples comparison with {@code jdbc} ones.
+     */
+    private Persistence persistence = Persistence.JDBC;
+
+    /** Arrival rate in requests per second */
+    private int rate = 100;
+
+    /** Measure duration in seconds */
+    private int duration = 60;
+
+    /** Warm-up duration in seconds */
+    private int warmup = 10;
+
+    /** Mapper */
+    private Mapper mapper = Mapper.MANUAL;
+
+    /** Methods mix (method and weight pairs) */
+    private String mix = "get:80,create:15,list:5";
+
+    /** Number of customers to create before load */
+    private int customers = 100;
+
+    /** Test suite comment */
+    private String comment = "";
+    // Attributes -
+
+
+    // Methods +
+    /**
+     * Parse options
+     *
+     * @param args the options as {@code name=value} pairs: {@code url}, {@code protocol}, {@code persistence}, {@code rate}, {@code duration},
+     *        {@code warmup}, {@code mapper}, {@code mix}, {@code customers} and {@code comment}
+     *
+     * @return the options
+     *
+     * @throws IllegalArgumentException invalid option
+     */
+    public static Options parse(final String... args) {
+      final Options opts = new Options();
+      for(final String arg : args) {
+        final int idx = arg.indexOf('=');
+        if(idx <= 0) {
+          throw new IllegalArgumentException("Invalid option " + arg + ": expected name=value");
+        }
+        final String value = arg.substring(idx + 1);
+        switch(arg.substring(0, idx)) {
+          case "url":
+            opts.url = value;
+            break;
+          case "protocol":
+            if(!"webflux".equals(value) && !"blocking".equals(value) && !"vthread".equals(value)) {
+              throw new IllegalArgumentException("Unknown protocol " + value + ": expected webflux, blocking or vthread");
+            }
+            opts.protocol = value;
+            break;
+          case "persistence":
+            opts.persistence = Persistence.valueOf(value.toUpperCase(Locale.ROOT));
+            break;
+          case "rate":
+            opts.rate = Integer.parseInt(value);
+            break;
+          case "duration":
+            opts.duration = Integer.parseInt(value);
+            break;
+          case "warmup":
+            opts.warmup = Integer.parseInt(value);
+            break;
+          case "mapper":
+            opts.mapper = Mapper.valueOf(value.toUpperCase());
+            break;
+          case "mix":
+            opts.mix = value;
+            break;
+          case "customers":
+            opts.customers = Integer.parseInt(value);
+            break;
+          case "comment":
+            opts.comment = value;
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown option " + arg.substring(0, idx));
+        }
+      }
+      if(opts.persistence != Persistence.JDBC && !"webflux".equals(opts.protocol)) {
+        throw new IllegalArgumentException("Persistence " + opts.persistence + " is only available with webflux protocol");
+      }
+      return opts;
+    }
+    // Methods -
+
+  }
+
+  /**
+   * Method latency recorders
+   *
+   * @author Vincent Lachenal
+   */
+  private static final class MethodLatency {
+
+    /** Latencies from scheduled start */
+    private final Recorder corrected = new Recorder(DIGITS);
+
+    /** Latencies from actual send */
+    private final Recorder uncorrected = new Recorder(DIGITS);
+
+  }
+
+  /**
+   * HTTP response status and body
+   *
+   * @author Vincent Lachenal
+   */
+  private static final class Response {
+
+    // Attributes +
+    /** Status code ({@code -1} on I/O error) */
+    private final int status;
+
+    /** Body */
+    private final String body;
+    // Attributes -
+
+
+    // Constructors +
+    /**
+     * {@link Response} constructor
+     *
+     * @param status the status code
+     * @param body the body
+     */
+    private Response(final int status, final String body) {
+      this.status = status;
+      this.body = body;
+    }
+    // Constructors -
+
+
+    // Methods +
+    /**
+     * Read response
+     *
+     * @param res the response
+     * @param body the response body
+     *
+     * @return the response status and body
+     */
+    private static Mono<Response> of(final HttpClientResponse res, final ByteBufMono body) {
+      return body.asString().defaultIfEmpty("").map(content -> new Response(res.status().code(), content));
+    }
+    // Methods -
+
+  }
+  // Classes -
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Mapping strategy which writes customer DTOs as JSON without building REST
+ * model objects.<br>
+ * Handlers write these buffers as response body instead of encoding REST
+ * customers.
+ *
+ * @author Vincent Lachenal
+ */
+public interface JsonMapperStrategy extends MapperStrategy {
+
+  /**
+   * Write customer as JSON object
+   *
+   * @param customer the customer DTO
+   * @param factory the buffer factory to use
+   *
+   * @return the buffer (written on subscription)
+   */
+  Mono<DataBuffer> toJson(CustomerDTO customer, DataBufferFactory factory);
+
+  /**
+   * Write customers as JSON array
+   *
+   * @param customers the customer DTOs
+   * @param factory the buffer factory to use
+   *
+   * @return the buffers (array opening and closing are included)
+   */
+  Flux<DataBuffer> toJsonArray(Flux<CustomerDTO> customers, DataBufferFactory factory);
+
+}
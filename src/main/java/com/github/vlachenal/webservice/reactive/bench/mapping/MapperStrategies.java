@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Mapper;
+
+
+/**
+ * Mapping strategies registry.<br>
+ * Strategy is resolved once per request from the {@code mapper} header:
+ * unknown or missing mapper falls back to {@link Mapper#MANUAL}.
+ *
+ * @author Vincent Lachenal
+ */
+@Component
+public class MapperStrategies {
+
+  // Attributes +
+  /** Strategies by mapper */
+  private final Map<Mapper,MapperStrategy> strategies;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link MapperStrategies} constructor
+   *
+   * @param strategies the available strategies
+   */
+  public MapperStrategies(final List<MapperStrategy> strategies) {
+    this.strategies = new EnumMap<>(Mapper.class);
+    for(final MapperStrategy strategy : strategies) {
+      if(this.strategies.put(strategy.getMapper(), strategy) != null) {
+        throw new IllegalStateException("Several strategies are registered for mapper " + strategy.getMapper());
+      }
+    }
+    if(!this.strategies.containsKey(Mapper.MANUAL)) {
+      throw new IllegalStateException("No strategy is registered for mapper " + Mapper.MANUAL);
+    }
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Get mapper strategy
+   *
+   * @param mapper the mapper
+   *
+   * @return the strategy, the manual one if there is no strategy for mapper
+   */
+  public MapperStrategy get(final Mapper mapper) {
+    final MapperStrategy strategy = (mapper == null) ? null : strategies.get(mapper);
+    return (strategy == null) ? strategies.get(Mapper.MANUAL) : strategy;
+  }
+
+  /**
+   * Get all registered strategies
+   *
+   * @return the strategies
+   */
+  public Collection<MapperStrategy> getAll() {
+    return strategies.values();
+  }
+
+  /**
+   * Resolve mapper strategy from request header values
+   *
+   * @param header the mapper header values
+   *
+   * @return the strategy
+   */
+  public MapperStrategy resolve(final List<String> header) {
+    Mapper mapper = Mapper.MANUAL;
+    if(header != null && !header.isEmpty() && header.get(0) != null) {
+      try {
+        mapper = Mapper.valueOf(header.get(0).trim().toUpperCase(Locale.ROOT));
+      } catch(final IllegalArgumentException e) {
+        // Unknown mapper => manual
+      }
+    }
+    return get(mapper);
+  }
+  // Methods -
+
+}
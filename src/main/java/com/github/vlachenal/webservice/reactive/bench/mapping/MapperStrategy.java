@@ -0,0 +1,55 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Mapper;
+
+
+/**
+ * Customer mapping strategy.<br>
+ * Each mapping engine provides one strategy bean which is registered in
+ * {@link MapperStrategies} for its {@link Mapper} value.
+ *
+ * @author Vincent Lachenal
+ */
+public interface MapperStrategy {
+
+  /**
+   * Get the mapper this strategy implements
+   *
+   * @return the mapper
+   */
+  Mapper getMapper();
+
+  /**
+   * Get the mapper name as used in test suites and statistics
+   *
+   * @return the mapper name
+   */
+  String getName();
+
+  /**
+   * Convert customer DTO to REST
+   *
+   * @param dto the customer DTO
+   *
+   * @return the REST customer
+   */
+  Customer toRest(CustomerDTO dto);
+
+  /**
+   * Convert REST customer to DTO
+   *
+   * @param customer the REST customer
+   *
+   * @return the customer DTO
+   */
+  CustomerDTO fromRest(Customer customer);
+
+}
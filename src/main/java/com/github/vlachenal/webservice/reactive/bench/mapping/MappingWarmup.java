@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Component;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.PhoneDTO;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+
+import reactor.core.publisher.Flux;
+
+
+/**
+ * Mapping strategies warm-up.<br>
+ * Once application is started, every strategy maps customers back and forth
+ * (and writes them as JSON for {@link JsonMapperStrategy}) in a background
+ * thread so that mapping paths are JIT-compiled before the benchmark
+ * starts.<br>
+ * Application is ready when warm-up has succeeded: if it has failed,
+ * application is never ready and the failure is kept.
+ *
+ * @author Vincent Lachenal
+ */
+@Component
+public class MappingWarmup {
+
+  // Attributes +
+  /** {@link MappingWarmup} logger instance */
+  private static final Logger LOG = LoggerFactory.getLogger(MappingWarmup.class);
+
+  /** Mapping strategies */
+  private final MapperStrategies mappers;
+
+  /** Number of warm-up iterations per strategy */
+  private final int iterations;
+
+  /** Warm-up has succeeded */
+  private volatile boolean ready = false;
+
+  /** Warm-up failure ({@code null} while warm-up has not failed) */
+  private volatile Throwable failure = null;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link MappingWarmup} constructor
+   *
+   * @param mappers the mapping strategies to warm up
+   * @param iterations the number of warm-up iterations per strategy ({@code 0} to disable warm-up)
+   */
+  public MappingWarmup(final MapperStrategies mappers, @Value("${mapping.warmup.iterations:10000}") final int iterations) {
+    this.mappers = mappers;
+    this.iterations = iterations;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Start warm-up when application is ready
+   *
+   * @param event the application ready event
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start(final ApplicationReadyEvent event) {
+    if(iterations <= 0) {
+      ready = true;
+      return;
+    }
+    final Thread thread = new Thread(this::warmup, "mapping-warmup");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Map customers with every strategy
+   */
+  private void warmup() {
+    final long start = System.nanoTime();
+    final CustomerDTO dto = new CustomerDTO();
+    dto.setId("00000000-0000-0000-0000-000000000000");
+    dto.setFirstName("Chuck");
+    dto.setLastName("Norris");
+    dto.setEmail("chuck.norris@yopmail.com");
+    dto.setBirthDate(new Date());
+    dto.setAddress(new AddressDTO("75000", "Paris", "France", "1 rue de Rivoli"));
+    dto.setPhones(Arrays.asList(new PhoneDTO((short)1, "+33123456789"), new PhoneDTO((short)2, "+33612345678")));
+    try {
+      final DataBufferFactory factory = new DefaultDataBufferFactory();
+      for(final MapperStrategy strategy : mappers.getAll()) {
+        for(int i = 0 ; i < iterations ; ++i) {
+          final Customer customer = strategy.toRest(dto);
+          strategy.fromRest(customer);
+        }
+        // JSON strategies write responses without REST model: warm up writing too
+        if(strategy instanceof JsonMapperStrategy) {
+          final JsonMapperStrategy json = (JsonMapperStrategy)strategy;
+          for(int i = 0 ; i < iterations ; ++i) {
+            DataBufferUtils.release(json.toJson(dto, factory).block());
+            json.toJsonArray(Flux.just(dto, dto), factory).doOnNext(DataBufferUtils::release).blockLast();
+          }
+        }
+      }
+      LOG.info("Mapping strategies have been warmed up in {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      ready = true;
+    } catch(final RuntimeException | LinkageError e) {
+      LOG.error("Mapping warm-up has failed: " + e.getMessage(), e);
+      failure = e;
+    }
+  }
+
+  /**
+   * Has warm-up succeeded ?
+   *
+   * @return {@code true} when warm-up has succeeded, {@code false} otherwise
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Get warm-up failure
+   *
+   * @return the failure, {@code null} if warm-up has not failed
+   */
+  public Throwable getFailure() {
+    return failure;
+  }
+  // Methods -
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping.bytecode;
+
+import org.springframework.stereotype.Component;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Mapper;
+
+
+/**
+ * Runtime generated mapping strategy.<br>
+ * Mappers are generated once, when strategy is created.
+ *
+ * @author Vincent Lachenal
+ */
+@Component
+public class BytecodeMapperStrategy implements MapperStrategy {
+
+  // Attributes +
+  /** DTO to REST mapper */
+  private final GeneratedMapper<CustomerDTO,Customer> toRest;
+
+  /** REST to DTO mapper */
+  private final GeneratedMapper<Customer,CustomerDTO> fromRest;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link BytecodeMapperStrategy} constructor
+   */
+  public BytecodeMapperStrategy() {
+    toRest = GeneratedMapper.generate(CustomerDTO.class, Customer.class);
+    fromRest = GeneratedMapper.generate(Customer.class, CustomerDTO.class);
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#getMapper()
+   */
+  @Override
+  public Mapper getMapper() {
+    return Mapper.BYTECODE;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#getName()
+   */
+  @Override
+  public String getName() {
+    return "bytecode";
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#toRest(com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO)
+   */
+  @Override
+  public Customer toRest(final CustomerDTO dto) {
+    return toRest.map(dto);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#fromRest(com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer)
+   */
+  @Override
+  public CustomerDTO fromRest(final Customer customer) {
+    return fromRest.map(customer);
+  }
+  // Methods -
+
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping.bytecode;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+
+/**
+ * Runtime generated mapper.<br>
+ * Source and target classes are introspected once: every property which has
+ * a getter in source and a setter with the same name in target is copied.
+ * Constructor, getters and setters are bound to generated lambda classes
+ * through {@link LambdaMetafactory}, so mapping involves neither reflection
+ * nor method handle invocation.<br>
+ * Values are copied as is when types are compatible. Otherwise, enumerations
+ * are converted by constant name, lists element by element and other types
+ * with a nested generated mapper.
+ *
+ * @param <S> the source type
+ * @param <T> the target type
+ *
+ * @author Vincent Lachenal
+ */
+public final class GeneratedMapper<S,T> {
+
+  // Attributes +
+  /** Lookup used to generate lambdas */
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  /** Target constructor */
+  private final Supplier<T> constructor;
+
+  /** Property copiers (set once, right after generation) */
+  private PropertyCopier[] copiers;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link GeneratedMapper} constructor
+   *
+   * @param constructor the target constructor
+   */
+  private GeneratedMapper(final Supplier<T> constructor) {
+    this.constructor = constructor;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Generate mapper
+   *
+   * @param <S> the source type
+   * @param <T> the target type
+   *
+   * @param source the source class
+   * @param target the target class
+   *
+   * @return the mapper
+   *
+   * @throws IllegalArgumentException when mapper can not be generated
+   */
+  public static <S,T> GeneratedMapper<S,T> generate(final Class<S> source, final Class<T> target) {
+    try {
+      return generate(source, target, new HashMap<>());
+    } catch(final IllegalArgumentException e) {
+      throw e;
+    } catch(final Throwable e) {
+      throw new IllegalArgumentException("Unable to generate mapper from " + source.getName() + " to " + target.getName(), e);
+    }
+  }
+
+  /**
+   * Generate mapper and its nested mappers
+   *
+   * @param <S> the source type
+   * @param <T> the target type
+   *
+   * @param source the source class
+   * @param target the target class
+   * @param mappers the mappers which have already been generated (or are being generated)
+   *
+   * @return the mapper
+   *
+   * @throws Throwable any error
+   */
+  @SuppressWarnings("unchecked")
+  private static <S,T> GeneratedMapper<S,T> generate(final Class<S> source, final Class<T> target, final Map<List<Class<?>>,GeneratedMapper<?,?>> mappers) throws Throwable {
+    final List<Class<?>> key = Arrays.asList(source, target);
+    GeneratedMapper<S,T> mapper = (GeneratedMapper<S,T>)mappers.get(key);
+    if(mapper != null) {
+      return mapper;
+    }
+    mapper = new GeneratedMapper<>(constructor(target));
+    mappers.put(key, mapper); // Registered before properties for recursive structures
+    final Map<String,PropertyDescriptor> sourceProps = properties(source);
+    final List<PropertyCopier> copiers = new ArrayList<>();
+    for(final PropertyDescriptor targetProp : properties(target).values()) {
+      final PropertyDescriptor sourceProp = sourceProps.get(targetProp.getName());
+      if(targetProp.getWriteMethod() == null || sourceProp == null || sourceProp.getReadMethod() == null) {
+        continue;
+      }
+      copiers.add(copier(sourceProp.getReadMethod(), targetProp.getWriteMethod(), mappers));
+    }
+    mapper.copiers = copiers.toArray(new PropertyCopier[copiers.size()]);
+    return mapper;
+  }
+
+  /**
+   * Introspect class properties
+   *
+   * @param type the class
+   *
+   * @return the properties by name
+   *
+   * @throws IntrospectionException introspection error
+   */
+  private static Map<String,PropertyDescriptor> properties(final Class<?> type) throws IntrospectionException {
+    final Map<String,PropertyDescriptor> props = new HashMap<>();
+    for(final PropertyDescriptor prop : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+      props.put(prop.getName(), prop);
+    }
+    return props;
+  }
+
+  /**
+   * Generate property copier
+   *
+   * @param getter the source getter
+   * @param setter the target setter
+   * @param mappers the generated mappers
+   *
+   * @return the copier
+   *
+   * @throws Throwable any error
+   */
+  private static PropertyCopier copier(final Method getter, final Method setter, final Map<List<Class<?>>,GeneratedMapper<?,?>> mappers) throws Throwable {
+    final Function<Object,Object> get = getter(getter);
+    final BiConsumer<Object,Object> set = setter(setter);
+    final Function<Object,Object> convert = converter(getter.getGenericReturnType(), setter.getGenericParameterTypes()[0], mappers);
+    final boolean primitive = setter.getParameterTypes()[0].isPrimitive();
+    if(convert == null) {
+      if(primitive) {
+        return (src, dst) -> {
+          final Object value = get.apply(src);
+          if(value != null) {
+            set.accept(dst, value);
+          }
+        };
+      }
+      return (src, dst) -> set.accept(dst, get.apply(src));
+    }
+    return (src, dst) -> {
+      final Object value = get.apply(src);
+      if(value != null) {
+        set.accept(dst, convert.apply(value));
+      }
+    };
+  }
+
+  /**
+   * Build value converter
+   *
+   * @param from the source value type
+   * @param to the target value type
+   * @param mappers the generated mappers
+   *
+   * @return the converter, {@code null} if value can be copied as is
+   *
+   * @throws Throwable any error
+   */
+  @SuppressWarnings({"unchecked","rawtypes"})
+  private static Function<Object,Object> converter(final Type from, final Type to, final Map<List<Class<?>>,GeneratedMapper<?,?>> mappers) throws Throwable {
+    if(from.equals(to)) {
+      return null;
+    }
+    final Class<?> fromClass = raw(from);
+    final Class<?> toClass = raw(to);
+    if(List.class.isAssignableFrom(fromClass) && toClass.isAssignableFrom(ArrayList.class)) {
+      final Function<Object,Object> element = converter(element(from), element(to), mappers);
+      if(element == null) {
+        return null;
+      }
+      return value -> {
+        final List<?> list = (List<?>)value;
+        final List<Object> res = new ArrayList<>(list.size());
+        for(final Object item : list) {
+          res.add((item == null) ? null : element.apply(item));
+        }
+        return res;
+      };
+    }
+    if(fromClass.isEnum() && toClass.isEnum()) {
+      // Constants are matched once by name and looked up by ordinal
+      final Object[] constants = new Object[fromClass.getEnumConstants().length];
+      for(final Object constant : fromClass.getEnumConstants()) {
+        try {
+          constants[((Enum<?>)constant).ordinal()] = Enum.valueOf((Class<Enum>)toClass, ((Enum<?>)constant).name());
+        } catch(final IllegalArgumentException e) {
+          // No matching constant => null
+        }
+      }
+      return value -> constants[((Enum<?>)value).ordinal()];
+    }
+    if(toClass.isAssignableFrom(fromClass)) {
+      return null;
+    }
+    if(fromClass.isPrimitive() || toClass.isPrimitive() || fromClass.getName().startsWith("java.") || toClass.getName().startsWith("java.")) {
+      throw new IllegalArgumentException("Unable to convert " + from.getTypeName() + " to " + to.getTypeName());
+    }
+    final GeneratedMapper<Object,Object> nested = (GeneratedMapper<Object,Object>)generate(fromClass, toClass, mappers);
+    return nested::map;
+  }
+
+  /**
+   * Get raw class of type
+   *
+   * @param type the type
+   *
+   * @return the raw class
+   */
+  private static Class<?> raw(final Type type) {
+    if(type instanceof ParameterizedType) {
+      return (Class<?>)((ParameterizedType)type).getRawType();
+    }
+    if(type instanceof Class) {
+      return (Class<?>)type;
+    }
+    throw new IllegalArgumentException("Unsupported type " + type.getTypeName());
+  }
+
+  /**
+   * Get list element type
+   *
+   * @param type the list type
+   *
+   * @return the element type
+   */
+  private static Type element(final Type type) {
+    if(type instanceof ParameterizedType) {
+      return ((ParameterizedType)type).getActualTypeArguments()[0];
+    }
+    return Object.class;
+  }
+
+  /**
+   * Box primitive type
+   *
+   * @param type the type
+   *
+   * @return the boxed type if type is primitive, type otherwise
+   */
+  private static Class<?> box(final Class<?> type) {
+    return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+  }
+
+  /**
+   * Generate constructor lambda
+   *
+   * @param <T> the type
+   *
+   * @param type the class
+   *
+   * @return the constructor
+   *
+   * @throws Throwable any error
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> Supplier<T> constructor(final Class<T> type) throws Throwable {
+    final MethodHandle ctor = LOOKUP.findConstructor(type, MethodType.methodType(void.class));
+    final CallSite site = LambdaMetafactory.metafactory(LOOKUP, "get", MethodType.methodType(Supplier.class),
+                                                        MethodType.methodType(Object.class), ctor, MethodType.methodType(type));
+    return (Supplier<T>)site.getTarget().invokeExact();
+  }
+
+  /**
+   * Generate getter lambda
+   *
+   * @param getter the getter
+   *
+   * @return the getter
+   *
+   * @throws Throwable any error
+   */
+  @SuppressWarnings("unchecked")
+  private static Function<Object,Object> getter(final Method getter) throws Throwable {
+    final MethodHandle handle = LOOKUP.unreflect(getter);
+    final CallSite site = LambdaMetafactory.metafactory(LOOKUP, "apply", MethodType.methodType(Function.class),
+                                                        MethodType.methodType(Object.class, Object.class), handle,
+                                                        MethodType.methodType(box(getter.getReturnType()), getter.getDeclaringClass()));
+    return (Function<Object,Object>)site.getTarget().invokeExact();
+  }
+
+  /**
+   * Generate setter lambda
+   *
+   * @param setter the setter
+   *
+   * @return the setter
+   *
+   * @throws Throwable any error
+   */
+  @SuppressWarnings("unchecked")
+  private static BiConsumer<Object,Object> setter(final Method setter) throws Throwable {
+    final MethodHandle handle = LOOKUP.unreflect(setter);
+    final CallSite site = LambdaMetafactory.metafactory(LOOKUP, "accept", MethodType.methodType(BiConsumer.class),
+                                                        MethodType.methodType(void.class, Object.class, Object.class), handle,
+                                                        MethodType.methodType(void.class, setter.getDeclaringClass(), box(setter.getParameterTypes()[0])));
+    return (BiConsumer<Object,Object>)site.getTarget().invokeExact();
+  }
+
+  /**
+   * Map source to a new target instance
+   *
+   * @param source the source
+   *
+   * @return the target, {@code null} if source is {@code null}
+   */
+  public T map(final S source) {
+    if(source == null) {
+      return null;
+    }
+    final T target = constructor.get();
+    for(final PropertyCopier copier : copiers) {
+      copier.copy(source, target);
+    }
+    return target;
+  }
+  // Methods -
+
+
+  // Classes +
+  /**
+   * Property copier
+   *
+   * @author Vincent Lachenal
+   */
+  @FunctionalInterface
+  private interface PropertyCopier {
+
+    /**
+     * Copy property from source to target
+     *
+     * @param source the source
+     * @param target the target
+     */
+    void copy(Object source, Object target);
+
+  }
+  // Classes -
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping.direct;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.PhoneDTO;
+import com.github.vlachenal.webservice.reactive.bench.mapping.JsonMapperStrategy;
+import com.github.vlachenal.webservice.reactive.bench.mapping.manual.CustomerBridge;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Mapper;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Direct DTO to JSON strategy.<br>
+ * Customer DTOs are written with a streaming {@link JsonGenerator} into
+ * buffers allocated from the response buffer factory (pooled with Netty):
+ * no REST model object is created. JSON is the same as the one produced
+ * by Jackson from REST model. Incoming customers are mapped manually.
+ *
+ * @author Vincent Lachenal
+ */
+@Component
+public class DirectMapperStrategy implements JsonMapperStrategy {
+
+  // Attributes +
+  /** Initial customer buffer capacity */
+  private static final int CAPACITY = 512;
+
+  /** Birth date format (as REST model) */
+  private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneOffset.UTC);
+
+  /** JSON generators factory */
+  private final JsonFactory json = new JsonFactory();
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#getMapper()
+   */
+  @Override
+  public Mapper getMapper() {
+    return Mapper.DIRECT;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#getName()
+   */
+  @Override
+  public String getName() {
+    return "direct";
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#toRest(com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO)
+   */
+  @Override
+  public Customer toRest(final CustomerDTO dto) {
+    return CustomerBridge.toRest(dto);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#fromRest(com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer)
+   */
+  @Override
+  public CustomerDTO fromRest(final Customer customer) {
+    return CustomerBridge.fromRest(customer);
+  }
+
+  /**
+   * Write customer into new buffer
+   *
+   * @param factory the buffer factory
+   * @param prefix the character to write before customer ({@code 0} for none)
+   * @param customer the customer ({@code null} to only write prefix)
+   * @param suffix the character to write after customer ({@code 0} for none)
+   *
+   * @return the buffer
+   */
+  private DataBuffer write(final DataBufferFactory factory, final char prefix, final CustomerDTO customer, final char suffix) {
+    final DataBuffer buffer = factory.allocateBuffer(CAPACITY);
+    try(final JsonGenerator gen = json.createGenerator(buffer.asOutputStream())) {
+      if(prefix != 0) {
+        gen.writeRaw(prefix);
+      }
+      if(customer != null) {
+        write(gen, customer);
+      }
+      if(suffix != 0) {
+        gen.writeRaw(suffix);
+      }
+    } catch(final IOException | RuntimeException e) {
+      DataBufferUtils.release(buffer);
+      throw (e instanceof IOException) ? new UncheckedIOException((IOException)e) : (RuntimeException)e;
+    }
+    return buffer;
+  }
+
+  /**
+   * Write customer
+   *
+   * @param gen the JSON generator
+   * @param customer the customer
+   *
+   * @throws IOException write error
+   */
+  private static void write(final JsonGenerator gen, final CustomerDTO customer) throws IOException {
+    gen.writeStartObject();
+    gen.writeStringField("id", customer.getId());
+    gen.writeStringField("first_name", customer.getFirstName());
+    gen.writeStringField("last_name", customer.getLastName());
+    final Date birthDate = customer.getBirthDate();
+    gen.writeStringField("birth_date", (birthDate == null) ? null : DATE_FORMAT.format(Instant.ofEpochMilli(birthDate.getTime())));
+    gen.writeFieldName("address");
+    final AddressDTO address = customer.getAddress();
+    if(address == null) {
+      gen.writeNull();
+    } else {
+      gen.writeStartObject();
+      gen.writeFieldName("lines");
+      if(address.getLines() == null) {
+        gen.writeNull();
+      } else {
+        gen.writeStartArray();
+        for(final String line : address.getLines()) {
+          gen.writeString(line);
+        }
+        gen.writeEndArray();
+      }
+      gen.writeStringField("zip_code", address.getZipCode());
+      gen.writeStringField("city", address.getCity());
+      gen.writeStringField("country", address.getCountry());
+      gen.writeEndObject();
+    }
+    gen.writeStringField("email", customer.getEmail());
+    gen.writeFieldName("phones");
+    if(customer.getPhones() == null) {
+      gen.writeNull();
+    } else {
+      gen.writeStartArray();
+      for(final PhoneDTO phone : customer.getPhones()) {
+        gen.writeStartObject();
+        gen.writeStringField("type", (phone.getType() == null) ? null : phone.getType().name());
+        gen.writeStringField("number", phone.getNumber());
+        gen.writeEndObject();
+      }
+      gen.writeEndArray();
+    }
+    gen.writeEndObject();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.JsonMapperStrategy#toJson(com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO, org.springframework.core.io.buffer.DataBufferFactory)
+   */
+  @Override
+  public Mono<DataBuffer> toJson(final CustomerDTO customer, final DataBufferFactory factory) {
+    return Mono.fromSupplier(() -> write(factory, (char)0, customer, (char)0));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.JsonMapperStrategy#toJsonArray(reactor.core.publisher.Flux, org.springframework.core.io.buffer.DataBufferFactory)
+   */
+  @Override
+  public Flux<DataBuffer> toJsonArray(final Flux<CustomerDTO> customers, final DataBufferFactory factory) {
+    return Flux.defer(() -> {
+      final boolean[] first = { true };
+      return customers.map(customer -> {
+        final char prefix = first[0] ? '[' : ',';
+        first[0] = false;
+        return write(factory, prefix, customer, (char)0);
+      }).concatWith(Mono.fromSupplier(() -> write(factory, first[0] ? '[' : (char)0, null, ']')));
+    });
+  }
+  // Methods -
+
+}
@@ -11,6 +11,14 @@ import org.springframework.context.annotation.Configuration;
 
 import com.github.dozermapper.core.DozerBeanMapperBuilder;
 import com.github.dozermapper.core.Mapper;
+import com.github.dozermapper.core.loader.api.BeanMappingBuilder;
+import com.github.dozermapper.core.loader.api.FieldsMappingOptions;
+import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.PhoneDTO;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Address;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Phone;
 
 
 /**
@@ -23,13 +31,25 @@ public class DozerConfig {
 
   // Methods +
   /**
-   * Configure Dozer mapper
+   * Configure Dozer mapper.<br>
+   * Every DTO/REST pair is declared explicitly and mappings are loaded when
+   * bean is created instead of on the first mapping.
    *
    * @return the mapper
    */
   @Bean
   public Mapper dozer() {
-    return DozerBeanMapperBuilder.create().build();
+    final Mapper mapper = DozerBeanMapperBuilder.create().withMappingBuilder(new BeanMappingBuilder() {
+      @Override
+      protected void configure() {
+        mapping(CustomerDTO.class, Customer.class)
+        .fields("phones", "phones", FieldsMappingOptions.hintA(PhoneDTO.class), FieldsMappingOptions.hintB(Phone.class));
+        mapping(AddressDTO.class, Address.class);
+        mapping(PhoneDTO.class, Phone.class);
+      }
+    }).build();
+    mapper.getMappingMetadata(); // Loads class mappings
+    return mapper;
   }
   // Methods -
 
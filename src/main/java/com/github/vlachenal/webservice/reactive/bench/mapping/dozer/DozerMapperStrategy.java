@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping.dozer;
+
+import org.springframework.stereotype.Component;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Mapper;
+
+
+/**
+ * Dozer mapping strategy
+ *
+ * @author Vincent Lachenal
+ */
+@Component
+public class DozerMapperStrategy implements MapperStrategy {
+
+  // Attributes +
+  /** Dozer mapper */
+  private final com.github.dozermapper.core.Mapper dozer;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link DozerMapperStrategy} constructor
+   *
+   * @param dozer the Dozer mapper to use
+   */
+  public DozerMapperStrategy(final com.github.dozermapper.core.Mapper dozer) {
+    this.dozer = dozer;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#getMapper()
+   */
+  @Override
+  public Mapper getMapper() {
+    return Mapper.DOZER;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#getName()
+   */
+  @Override
+  public String getName() {
+    return "dozer";
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#toRest(com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO)
+   */
+  @Override
+  public Customer toRest(final CustomerDTO dto) {
+    return dozer.map(dto, Customer.class);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#fromRest(com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer)
+   */
+  @Override
+  public CustomerDTO fromRest(final Customer customer) {
+    return dozer.map(customer, CustomerDTO.class);
+  }
+  // Methods -
+
+}
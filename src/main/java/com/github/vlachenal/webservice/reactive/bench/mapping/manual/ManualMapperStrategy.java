@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping.manual;
+
+import org.springframework.stereotype.Component;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Mapper;
+
+
+/**
+ * Manual mapping strategy (*Bridge classes)
+ *
+ * @author Vincent Lachenal
+ */
+@Component
+public class ManualMapperStrategy implements MapperStrategy {
+
+  // Methods +
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#getMapper()
+   */
+  @Override
+  public Mapper getMapper() {
+    return Mapper.MANUAL;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#getName()
+   */
+  @Override
+  public String getName() {
+    return "manual";
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#toRest(com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO)
+   */
+  @Override
+  public Customer toRest(final CustomerDTO dto) {
+    return CustomerBridge.toRest(dto);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#fromRest(com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer)
+   */
+  @Override
+  public CustomerDTO fromRest(final Customer customer) {
+    return CustomerBridge.fromRest(customer);
+  }
+  // Methods -
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping.mapstruct;
+
+import org.springframework.stereotype.Component;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Mapper;
+
+
+/**
+ * MapStruct mapping strategy
+ *
+ * @author Vincent Lachenal
+ */
+@Component
+public class MapStructMapperStrategy implements MapperStrategy {
+
+  // Attributes +
+  /** MapStruct customer mapper */
+  private final CustomerMapper mapper;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link MapStructMapperStrategy} constructor
+   *
+   * @param mappers the MapStruct mappers to use
+   */
+  public MapStructMapperStrategy(final MapStructMappers mappers) {
+    mapper = mappers.customer();
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#getMapper()
+   */
+  @Override
+  public Mapper getMapper() {
+    return Mapper.MAPSTRUCT;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#getName()
+   */
+  @Override
+  public String getName() {
+    return "mapstruct";
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#toRest(com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO)
+   */
+  @Override
+  public Customer toRest(final CustomerDTO dto) {
+    return mapper.toRest(dto);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * @see com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy#fromRest(com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer)
+   */
+  @Override
+  public CustomerDTO fromRest(final Customer customer) {
+    return mapper.fromRest(customer);
+  }
+  // Methods -
+
+}
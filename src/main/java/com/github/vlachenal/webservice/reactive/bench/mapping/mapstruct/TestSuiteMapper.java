@@ -67,6 +67,12 @@ public interface TestSuiteMapper {
       case MAPSTRUCT:
         str = "mapstruct";
         break;
+      case BYTECODE:
+        str = "bytecode";
+        break;
+      case DIRECT:
+        str = "direct";
+        break;
       default:
         // Nothing to do => manual
     }
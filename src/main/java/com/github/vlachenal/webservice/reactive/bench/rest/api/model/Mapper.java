@@ -21,6 +21,12 @@ public enum Mapper {
   DOZER,
 
   /** MapStruct mapper */
-  MAPSTRUCT
+  MAPSTRUCT,
+
+  /** Runtime generated mapper */
+  BYTECODE,
+
+  /** Direct DTO to JSON writer */
+  DIRECT
 
 }
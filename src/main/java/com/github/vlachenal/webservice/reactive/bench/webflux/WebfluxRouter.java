@@ -17,6 +17,7 @@ import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
 import com.github.vlachenal.webservice.reactive.bench.webflux.api.CustomerHandler;
+import com.github.vlachenal.webservice.reactive.bench.webflux.api.ReadinessHandler;
 import com.github.vlachenal.webservice.reactive.bench.webflux.api.StatisticsHandler;
 
 
@@ -44,6 +45,10 @@ public class WebfluxRouter implements WebFluxConfigurer {
                  RouterFunctions.route(RequestPredicates.method(HttpMethod.GET)
                                        .and(RequestPredicates.accept(MediaType.APPLICATION_JSON_UTF8).or(RequestPredicates.accept(MediaType.APPLICATION_STREAM_JSON))),
                                        handler::list)
+                 .andRoute(RequestPredicates.POST("/bulk")
+                           .and(RequestPredicates.contentType(MediaType.APPLICATION_STREAM_JSON))
+                           .and(RequestPredicates.accept(MediaType.TEXT_PLAIN)),
+                           handler::bulkCreate)
                  .andRoute(RequestPredicates.method(HttpMethod.POST)
                            .and(RequestPredicates.contentType(MediaType.APPLICATION_JSON_UTF8))
                            .and(RequestPredicates.accept(MediaType.TEXT_PLAIN)),
@@ -65,11 +70,27 @@ public class WebfluxRouter implements WebFluxConfigurer {
                                                       .and(RequestPredicates.contentType(MediaType.APPLICATION_JSON_UTF8))
                                                       .and(RequestPredicates.accept(MediaType.TEXT_PLAIN)),
                                                       handler::create)
-                                .andRoute(RequestPredicates.method(HttpMethod.DELETE), handler::purge))
+                                .andRoute(RequestPredicates.method(HttpMethod.DELETE), handler::purge)
+                                .andRoute(RequestPredicates.GET("/cache"), handler::cacheCounters)
+                                .andRoute(RequestPredicates.GET("/histograms"), handler::histograms)
+                                .andRoute(RequestPredicates.GET("/compare"), handler::compare))
         .andRoute(RequestPredicates.POST("/webflux/stats/{id}/calls")
                   .and(RequestPredicates.contentType(MediaType.APPLICATION_JSON_UTF8).or(RequestPredicates.contentType(MediaType.APPLICATION_STREAM_JSON)))
                   .and(RequestPredicates.accept(MediaType.TEXT_PLAIN)),
-                  handler::addCalls);
+                  handler::addCalls)
+        .andRoute(RequestPredicates.GET("/webflux/stats/{id}/summary"), handler::summary);
+  }
+
+  /**
+   * Route readiness requests
+   *
+   * @param handler the handler
+   *
+   * @return the route configuration
+   */
+  @Bean
+  public RouterFunction<ServerResponse> routeReadiness(final ReadinessHandler handler) {
+    return RouterFunctions.route(RequestPredicates.GET("/webflux/ready"), handler::ready);
   }
 
 }
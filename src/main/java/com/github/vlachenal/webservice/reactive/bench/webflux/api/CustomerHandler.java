@@ -15,22 +15,27 @@ import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
-import com.github.dozermapper.core.Mapper;
 import com.github.vlachenal.webservice.reactive.bench.business.CustomerBusiness;
+import com.github.vlachenal.webservice.reactive.bench.cache.LatencyHistograms;
 import com.github.vlachenal.webservice.reactive.bench.cache.StatisticsCache;
-import com.github.vlachenal.webservice.reactive.bench.dto.CallDTO;
+import com.github.vlachenal.webservice.reactive.bench.dao.Persistence;
 import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
 import com.github.vlachenal.webservice.reactive.bench.errors.InvalidParametersException;
 import com.github.vlachenal.webservice.reactive.bench.errors.NotFoundException;
-import com.github.vlachenal.webservice.reactive.bench.mapping.manual.CustomerBridge;
-import com.github.vlachenal.webservice.reactive.bench.mapping.mapstruct.MapStructMappers;
+import com.github.vlachenal.webservice.reactive.bench.mapping.JsonMapperStrategy;
+import com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategies;
+import com.github.vlachenal.webservice.reactive.bench.mapping.MapperStrategy;
 import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
 
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 
 /**
- * Webflux customer service handler
+ * Webflux customer service handler.<br>
+ * Persistence is resolved from the {@code persistence} header: calls are
+ * registered with {@code webflux} protocol for JDBC and with
+ * {@code webflux-r2dbc} protocol for R2DBC.
  *
  * @author Vincent Lachenal
  */
@@ -41,14 +46,14 @@ public class CustomerHandler {
   /** Customer business */
   private final CustomerBusiness business;
 
-  /** Dozer mapper */
-  private final Mapper dozer;
-
-  /** MapStruct mappers */
-  private final MapStructMappers mapstruct;
+  /** Mapping strategies */
+  private final MapperStrategies mappers;
 
   /** Statistics cache */
   private final StatisticsCache stats;
+
+  /** Latency histograms */
+  private final LatencyHistograms histograms;
   // Attributes -
 
 
@@ -57,81 +62,31 @@ public class CustomerHandler {
    * {@link CustomerHandler} constructor
    *
    * @param business the customer business to use
-   * @param dozer the Dozer mapper to use
-   * @param mapstruct the MapStruct mappers to use
+   * @param mappers the mapping strategies to use
    * @param stats the statistics cache to use
+   * @param histograms the latency histograms to use
    */
   public CustomerHandler(final CustomerBusiness business,
-                         final Mapper dozer,
-                         final MapStructMappers mapstruct,
-                         final StatisticsCache stats) {
+                         final MapperStrategies mappers,
+                         final StatisticsCache stats,
+                         final LatencyHistograms histograms) {
     this.business = business;
-    this.mapstruct = mapstruct;
+    this.mappers = mappers;
     this.stats = stats;
-    this.dozer = dozer;
+    this.histograms = histograms;
   }
   // Constructors -
 
 
   // Methods +
   /**
-   * Convert customer DTO to REST according to mapper
-   *
-   * @param dto the customer DTO
-   * @param mapper the mapper
-   *
-   * @return the REST customer
-   */
-  private Customer toRest(final CustomerDTO dto, final List<String> mapper) {
-    Customer customer = null;
-    final String map = (mapper == null || mapper.isEmpty()) ? "" : mapper.get(0);
-    switch(map) {
-      case "dozer":
-        customer = dozer.map(dto, Customer.class);
-        break;
-      case "mapstruct":
-        customer = mapstruct.customer().toRest(dto);
-        break;
-      default:
-        customer = CustomerBridge.toRest(dto);
-    }
-    return customer;
-  }
-
-  /**
-   * Convert REST customer to DTO according to mapper
+   * Parse request sequence
    *
-   * @param customer the REST customer
-   * @param mapper the mapper
+   * @param requestSeq the request sequence header
    *
-   * @return the customer DTO
+   * @return the request sequence if valid, {@code -1} otherwise
    */
-  private CustomerDTO fromRest(final Customer customer, final List<String> mapper) {
-    CustomerDTO dto = null;
-    final String map = (mapper == null || mapper.isEmpty()) ? "" : mapper.get(0);
-    switch(map) {
-      case "dozer":
-        dto = dozer.map(customer, CustomerDTO.class);
-        break;
-      case "mapstruct":
-        dto = mapstruct.customer().fromRest(customer);
-        break;
-      default:
-        dto = CustomerBridge.fromRest(customer);
-    }
-    return dto;
-  }
-
-  /**
-   * Initialize call
-   *
-   * @param requestSeq the request sequence
-   * @param method the method
-   *
-   * @return the call if requestSeq is not equal to {@code -1}, {@code null} otherwise
-   */
-  private CallDTO initializeCall(final List<String> requestSeq, final String method) {
-    CallDTO call = null;
+  public static int parseSeq(final List<String> requestSeq) {
     int seq = -1;
     if(requestSeq != null && !requestSeq.isEmpty()) {
       try {
@@ -140,26 +95,43 @@ public class CustomerHandler {
         // Nothing to do
       }
     }
+    return seq;
+  }
+
+  /**
+   * Record call latency and register call in cache if request sequence is valid.<br>
+   * Call is registered once response body has been written (see {@link TimedServerResponse}).
+   *
+   * @param seq the request sequence
+   * @param method the method
+   * @param mapper the mapping strategy
+   * @param persistence the persistence
+   * @param serverStart the server start in ns
+   */
+  private void registerCall(final int seq, final String method, final MapperStrategy mapper, final Persistence persistence, final long serverStart) {
+    final long serverEnd = System.nanoTime();
+    final String protocol = persistence.protocol("webflux");
+    histograms.record(protocol, method, mapper.getName(), serverEnd - serverStart);
     if(seq != -1) {
-      call = new CallDTO();
-      call.setSeq(seq);
-      call.setServerStart(System.nanoTime());
-      call.setProtocol("webflux");
-      call.setMethod(method);
+      stats.register(protocol, method, seq, serverStart, serverEnd);
     }
-    return call;
   }
 
   /**
-   * Register call if not null in cache
+   * Build customer response according to mapper
    *
-   * @param call the call to register
+   * @param req the request
+   * @param mapper the mapping strategy
+   * @param customer the customer DTO
+   *
+   * @return the response
    */
-  private void registerCall(final CallDTO call) {
-    if(call != null) {
-      call.setServerEnd(System.nanoTime());
-      stats.register(call);
+  private static Mono<ServerResponse> customerResponse(final ServerRequest req, final MapperStrategy mapper, final CustomerDTO customer) {
+    final ServerResponse.BodyBuilder ok = ServerResponse.ok().contentType(MediaType.APPLICATION_JSON);
+    if(mapper instanceof JsonMapperStrategy) {
+      return ok.body(BodyInserters.fromDataBuffers(((JsonMapperStrategy)mapper).toJson(customer, req.exchange().getResponse().bufferFactory())));
     }
+    return ok.body(BodyInserters.fromObject(mapper.toRest(customer)));
   }
 
   /**
@@ -170,11 +142,15 @@ public class CustomerHandler {
    * @return the response
    */
   public Mono<ServerResponse> get(final ServerRequest req) {
-    final CallDTO call = initializeCall(req.headers().header("request_seq"), "get");
-    return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(BodyInserters.fromObject(toRest(business.getDetails(req.pathVariable("id")), req.headers().header("mapper"))))
+    final int seq = parseSeq(req.headers().header("request_seq"));
+    final long start = System.nanoTime();
+    final MapperStrategy mapper = mappers.resolve(req.headers().header("mapper"));
+    final Persistence persistence = Persistence.resolve(req.headers().header("persistence"));
+    final Mono<ServerResponse> res = business.getDetails(req.pathVariable("id"), persistence)
+        .flatMap(cust -> customerResponse(req, mapper, cust))
         .onErrorResume(InvalidParametersException.class, e -> ServerResponse.badRequest().body(BodyInserters.fromObject(e.getMessage())))
-        .onErrorResume(NotFoundException.class, e -> ServerResponse.notFound().build())
-        .doFinally(s -> registerCall(call));
+        .onErrorResume(NotFoundException.class, e -> ServerResponse.notFound().build());
+    return TimedServerResponse.timed(res, () -> registerCall(seq, "get", mapper, persistence, start));
   }
 
   /**
@@ -185,12 +161,35 @@ public class CustomerHandler {
    * @return the response
    */
   public Mono<ServerResponse> create(final ServerRequest req) {
-    final CallDTO call = initializeCall(req.headers().header("request_seq"), "create");
+    final int seq = parseSeq(req.headers().header("request_seq"));
+    final long start = System.nanoTime();
     final UUID uuid = UUID.randomUUID();
-    return ServerResponse.created(req.uriBuilder().path("/{id}").build(uuid.toString()))
-        .body(BodyInserters.fromPublisher(business.create(req.bodyToMono(Customer.class).map(c -> fromRest(c, req.headers().header("mapper"))), uuid), String.class))
-        .onErrorResume(InvalidParametersException.class, e -> ServerResponse.badRequest().body(BodyInserters.fromObject(e.getMessage())))
-        .doFinally(s -> registerCall(call));
+    final MapperStrategy mapper = mappers.resolve(req.headers().header("mapper"));
+    final Persistence persistence = Persistence.resolve(req.headers().header("persistence"));
+    final Mono<ServerResponse> res = business.create(req.bodyToMono(Customer.class).map(mapper::fromRest), uuid, persistence)
+        .flatMap(id -> ServerResponse.created(req.uriBuilder().path("/{id}").build(id)).body(BodyInserters.fromObject(id)))
+        .onErrorResume(InvalidParametersException.class, e -> ServerResponse.badRequest().body(BodyInserters.fromObject(e.getMessage())));
+    return TimedServerResponse.timed(res, () -> registerCall(seq, "create", mapper, persistence, start));
+  }
+
+  /**
+   * Create customers from stream.<br>
+   * Response status is sent before customers are checked: an invalid
+   * customer ends the response with an {@code error: <message>} line. Every
+   * identifier sent before this line has been committed, customers after the
+   * last sent identifier have not.
+   *
+   * @param req the request
+   *
+   * @return the response which streams the created customers' identifiers (one per line)
+   */
+  public Mono<ServerResponse> bulkCreate(final ServerRequest req) {
+    final MapperStrategy mapper = mappers.resolve(req.headers().header("mapper"));
+    final Persistence persistence = Persistence.resolve(req.headers().header("persistence"));
+    return ServerResponse.ok().contentType(MediaType.TEXT_PLAIN)
+        .body(business.create(req.bodyToFlux(Customer.class).map(mapper::fromRest), persistence)
+              .map(id -> id + '\n')
+              .onErrorResume(InvalidParametersException.class, e -> Flux.just("error: " + e.getMessage() + '\n')), String.class);
   }
 
   /**
@@ -201,9 +200,18 @@ public class CustomerHandler {
    * @return the response
    */
   public Mono<ServerResponse> list(final ServerRequest req) {
-    final CallDTO call = initializeCall(req.headers().header("request_seq"), "list");
-    return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).body(business.listAll().map(c -> toRest(c, req.headers().header("mapper"))), Customer.class)
-        .doFinally(s -> registerCall(call));
+    final int seq = parseSeq(req.headers().header("request_seq"));
+    final long start = System.nanoTime();
+    final MapperStrategy mapper = mappers.resolve(req.headers().header("mapper"));
+    final Persistence persistence = Persistence.resolve(req.headers().header("persistence"));
+    final ServerResponse.BodyBuilder ok = ServerResponse.ok().contentType(MediaType.APPLICATION_JSON);
+    final Mono<ServerResponse> res;
+    if(mapper instanceof JsonMapperStrategy) {
+      res = ok.body(BodyInserters.fromDataBuffers(((JsonMapperStrategy)mapper).toJsonArray(business.listAll(persistence), req.exchange().getResponse().bufferFactory())));
+    } else {
+      res = ok.body(business.listAll(persistence).map(mapper::toRest), Customer.class);
+    }
+    return TimedServerResponse.timed(res, () -> registerCall(seq, "list", mapper, persistence, start));
   }
 
   /**
@@ -214,8 +222,7 @@ public class CustomerHandler {
    * @return the response
    */
   public Mono<ServerResponse> delete(final ServerRequest req) {
-    business.deleteAll();
-    return ServerResponse.ok().build();
+    return business.deleteAll(Persistence.resolve(req.headers().header("persistence"))).then(ServerResponse.ok().build());
   }
   // Methods -
 
@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.webflux.api;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.github.vlachenal.webservice.reactive.bench.mapping.MappingWarmup;
+
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Webflux readiness handler
+ *
+ * @author Vincent Lachenal
+ */
+@Component
+public class ReadinessHandler {
+
+  // Attributes +
+  /** Mapping warm-up */
+  private final MappingWarmup warmup;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link ReadinessHandler} constructor
+   *
+   * @param warmup the mapping warm-up to use
+   */
+  public ReadinessHandler(final MappingWarmup warmup) {
+    this.warmup = warmup;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Get readiness: {@code UP} once warm-up has succeeded, {@code OUT_OF_SERVICE} (503) before
+   * and {@code DOWN} (503) with the failure if warm-up has failed
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> ready(final ServerRequest req) {
+    if(warmup.isReady()) {
+      return ServerResponse.ok().contentType(MediaType.TEXT_PLAIN).body(BodyInserters.fromObject("UP"));
+    }
+    final Throwable failure = warmup.getFailure();
+    final String status = (failure == null) ? "OUT_OF_SERVICE" : "DOWN: " + failure;
+    return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).contentType(MediaType.TEXT_PLAIN).body(BodyInserters.fromObject(status));
+  }
+  // Methods -
+
+}
@@ -8,14 +8,18 @@ package com.github.vlachenal.webservice.reactive.bench.webflux.api;
 
 import java.util.UUID;
 
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.server.ServerRequest;
 import org.springframework.web.reactive.function.server.ServerResponse;
 
 import com.github.vlachenal.webservice.reactive.bench.business.StatisticsBusiness;
+import com.github.vlachenal.webservice.reactive.bench.cache.LatencyHistograms;
 import com.github.vlachenal.webservice.reactive.bench.cache.StatisticsCache;
+import com.github.vlachenal.webservice.reactive.bench.dao.Persistence;
 import com.github.vlachenal.webservice.reactive.bench.errors.InvalidParametersException;
+import com.github.vlachenal.webservice.reactive.bench.errors.NotFoundException;
 import com.github.vlachenal.webservice.reactive.bench.mapping.mapstruct.MapStructMappers;
 import com.github.vlachenal.webservice.reactive.bench.rest.api.model.ClientCall;
 import com.github.vlachenal.webservice.reactive.bench.rest.api.model.TestSuite;
@@ -24,7 +28,9 @@ import reactor.core.publisher.Mono;
 
 
 /**
- * Webflux statistics service handler
+ * Webflux statistics service handler.<br>
+ * Test suites are saved and read with the persistence resolved from the
+ * {@code persistence} header.
  *
  * @author Vincent Lachenal
  */
@@ -40,6 +46,9 @@ public class StatisticsHandler {
 
   /** Statistics cache */
   private final StatisticsCache stats;
+
+  /** Latency histograms */
+  private final LatencyHistograms histograms;
   // Attributes -
 
 
@@ -50,11 +59,13 @@ public class StatisticsHandler {
    * @param business the customer business to use
    * @param mapstruct the MapStruct mappers to use
    * @param stats the statistics cache to use
+   * @param histograms the latency histograms to use
    */
-  public StatisticsHandler(final StatisticsBusiness business, final MapStructMappers mapstruct, final StatisticsCache stats) {
+  public StatisticsHandler(final StatisticsBusiness business, final MapStructMappers mapstruct, final StatisticsCache stats, final LatencyHistograms histograms) {
     this.business = business;
     this.mapstruct = mapstruct;
     this.stats = stats;
+    this.histograms = histograms;
   }
   // Constructors -
 
@@ -69,8 +80,9 @@ public class StatisticsHandler {
    */
   public Mono<ServerResponse> create(final ServerRequest req) {
     final UUID uuid = UUID.randomUUID();
+    final Persistence persistence = Persistence.resolve(req.headers().header("persistence"));
     return ServerResponse.created(req.uriBuilder().path("/{id}").build(uuid.toString()))
-        .body(BodyInserters.fromPublisher(business.consolidate(req.bodyToMono(TestSuite.class).map(mapstruct.suite()::fromRest), uuid), String.class))
+        .body(BodyInserters.fromPublisher(business.consolidate(req.bodyToMono(TestSuite.class).map(mapstruct.suite()::fromRest), uuid, persistence), String.class))
         .onErrorResume(InvalidParametersException.class, e -> ServerResponse.badRequest().body(BodyInserters.fromObject(e.getMessage())));
   }
 
@@ -82,10 +94,39 @@ public class StatisticsHandler {
    * @return the response
    */
   public Mono<ServerResponse> addCalls(final ServerRequest req) {
-    return ServerResponse.ok().build(business.registerCalls(req.pathVariable("id"), req.bodyToFlux(ClientCall.class).map(mapstruct.call()::fromRest)))
+    final Persistence persistence = Persistence.resolve(req.headers().header("persistence"));
+    return ServerResponse.ok().build(business.registerCalls(req.pathVariable("id"), req.bodyToFlux(ClientCall.class).map(mapstruct.call()::fromRest), persistence))
         .onErrorResume(InvalidParametersException.class, e -> ServerResponse.badRequest().body(BodyInserters.fromObject(e.getMessage())));
   }
 
+  /**
+   * Summarize test suite calls by method
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> summary(final ServerRequest req) {
+    return business.summarize(req.pathVariable("id"), Persistence.resolve(req.headers().header("persistence")))
+        .flatMap(summary -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(BodyInserters.fromObject(summary)))
+        .onErrorResume(InvalidParametersException.class, e -> ServerResponse.badRequest().body(BodyInserters.fromObject(e.getMessage())))
+        .onErrorResume(NotFoundException.class, e -> ServerResponse.notFound().build());
+  }
+
+  /**
+   * Compare test suites given in {@code suites} query parameter (comma separated identifiers)
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> compare(final ServerRequest req) {
+    return business.compare(req.queryParam("suites").orElse(null), Persistence.resolve(req.headers().header("persistence")))
+        .flatMap(report -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(BodyInserters.fromObject(report)))
+        .onErrorResume(InvalidParametersException.class, e -> ServerResponse.badRequest().body(BodyInserters.fromObject(e.getMessage())))
+        .onErrorResume(NotFoundException.class, e -> ServerResponse.notFound().build());
+  }
+
   /**
    * Purge statistics cache
    *
@@ -97,6 +138,32 @@ public class StatisticsHandler {
     stats.clean();
     return ServerResponse.ok().build();
   }
+
+  /**
+   * Get statistics cache counters
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> cacheCounters(final ServerRequest req) {
+    return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(BodyInserters.fromObject(stats.getCounters()));
+  }
+
+  /**
+   * Get server latency histograms percentiles.<br>
+   * Query parameter {@code interval=true} returns latencies since previous
+   * interval snapshot, {@code reset=true} resets histograms after read.
+   *
+   * @param req the request
+   *
+   * @return the response
+   */
+  public Mono<ServerResponse> histograms(final ServerRequest req) {
+    final boolean interval = req.queryParam("interval").map(Boolean::parseBoolean).orElse(false);
+    final boolean reset = req.queryParam("reset").map(Boolean::parseBoolean).orElse(false);
+    return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(BodyInserters.fromObject(histograms.snapshot(interval, reset)));
+  }
   // Methods -
 
 }
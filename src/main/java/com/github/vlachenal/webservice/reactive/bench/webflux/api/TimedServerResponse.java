@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.webflux.api;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseCookie;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebExchange;
+
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Server response which notifies when it has been written.<br>
+ * Response {@link Mono} is completed as soon as status and body publisher are
+ * known: body is read, serialized and written afterwards, in
+ * {@link #writeTo(ServerWebExchange, Context)}. Calls are timed until body
+ * writing has completed so every mapping strategy (lazy or eager) and every
+ * response (streamed or not) is timed over the same span.
+ *
+ * @author Vincent Lachenal
+ */
+public final class TimedServerResponse implements ServerResponse {
+
+  // Attributes +
+  /** Response */
+  private final ServerResponse response;
+
+  /** Written callback */
+  private final Runnable written;
+  // Attributes -
+
+
+  // Constructors +
+  /**
+   * {@link TimedServerResponse} constructor
+   *
+   * @param response the response
+   * @param written the callback to run once response has been written (or writing has failed)
+   */
+  private TimedServerResponse(final ServerResponse response, final Runnable written) {
+    this.response = response;
+    this.written = written;
+  }
+  // Constructors -
+
+
+  // Methods +
+  /**
+   * Run callback once response has been written.<br>
+   * Callback is run immediately if there is no response to write (error or
+   * cancellation before response has been built).
+   *
+   * @param response the response
+   * @param written the callback to run once response has been written
+   *
+   * @return the timed response
+   */
+  public static Mono<ServerResponse> timed(final Mono<ServerResponse> response, final Runnable written) {
+    return response.<ServerResponse>map(res -> new TimedServerResponse(res, written))
+        .doOnError(e -> written.run())
+        .doOnCancel(written);
+  }
+
+  @Override
+  public HttpStatus statusCode() {
+    return response.statusCode();
+  }
+
+  @Override
+  public HttpHeaders headers() {
+    return response.headers();
+  }
+
+  @Override
+  public MultiValueMap<String,ResponseCookie> cookies() {
+    return response.cookies();
+  }
+
+  @Override
+  public Mono<Void> writeTo(final ServerWebExchange exchange, final Context context) {
+    return response.writeTo(exchange, context).doOnTerminate(written).doOnCancel(written);
+  }
+  // Methods -
+
+}
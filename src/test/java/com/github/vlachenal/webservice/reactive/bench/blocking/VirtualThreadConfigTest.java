@@ -0,0 +1,54 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.blocking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.Test;
+
+
+/**
+ * Virtual threads configuration unit tests
+ *
+ * @author Vincent Lachenal
+ */
+public class VirtualThreadConfigTest {
+
+  // Tests +
+  /**
+   * Tasks are run on virtual threads (Java 21+)
+   *
+   * @throws Exception any error
+   */
+  @Test
+  public void testVirtualThreadExecutor() throws Exception {
+    assumeTrue(Runtime.version().feature() >= 21);
+    final ExecutorService executor = VirtualThreadConfig.newVirtualThreadExecutor();
+    try {
+      final Thread thread = executor.submit(Thread::currentThread).get();
+      assertEquals(Boolean.TRUE, Thread.class.getMethod("isVirtual").invoke(thread));
+      assertTrue(thread.getName(), thread.getName().startsWith("vthread-"));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Virtual threads are not available before Java 21
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testNoVirtualThread() {
+    assumeTrue(Runtime.version().feature() < 21);
+    VirtualThreadConfig.newVirtualThreadExecutor();
+  }
+  // Tests -
+
+}
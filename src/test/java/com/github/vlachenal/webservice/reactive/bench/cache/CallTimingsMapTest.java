@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNoException;
+
+import org.junit.Test;
+
+
+/**
+ * Call timings map unit tests
+ *
+ * @author Vincent Lachenal
+ */
+public class CallTimingsMapTest {
+
+  // Tests +
+  /**
+   * Largest accepted capacity: records buffer size does not overflow
+   */
+  @Test
+  public void testMaxCapacity() {
+    assertEquals(1 << 24, CallTimingsMap.MAX_CAPACITY);
+    final CallTimingsMap map;
+    try {
+      map = new CallTimingsMap(CallTimingsMap.MAX_CAPACITY);
+    } catch(final OutOfMemoryError e) {
+      assumeNoException("Not enough direct memory for 1GB table", e);
+      return;
+    }
+    // Slots are spread over the whole table
+    for(long key = 0 ; key < 64 ; ++key) {
+      assertTrue(map.put(key, key, key + 1));
+    }
+    for(long key = 0 ; key < 64 ; ++key) {
+      final int slot = map.find(key);
+      assertNotEquals(-1, slot);
+      assertEquals(key + 1, map.serverEnd(slot));
+    }
+  }
+
+  /**
+   * Capacity above the largest accepted one is rejected
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testCapacityTooLarge() {
+    new CallTimingsMap(CallTimingsMap.MAX_CAPACITY + 1);
+  }
+  // Tests -
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+
+/**
+ * Latency histograms unit tests
+ *
+ * @author Vincent Lachenal
+ */
+public class LatencyHistogramsTest {
+
+  // Tests +
+  /**
+   * Percentiles are computed by protocol, method and mapper
+   */
+  @Test
+  public void testPercentiles() {
+    final LatencyHistograms histograms = new LatencyHistograms();
+    for(long i = 1 ; i <= 1000 ; ++i) {
+      histograms.record("webflux", "get", "manual", i * 1000L);
+    }
+    histograms.record("webflux", "list", "dozer", 42L);
+    final List<Map<String,Object>> snapshot = histograms.snapshot(false, false);
+    assertEquals(2, snapshot.size());
+    final Map<String,Object> get = snapshot.stream().filter(p -> "get".equals(p.get("method"))).findFirst().get();
+    assertEquals("manual", get.get("mapper"));
+    assertEquals(1000L, get.get("count"));
+    assertTrue(Math.abs((Long)get.get("p50") - 500_000L) <= 500L);
+    assertTrue(Math.abs((Long)get.get("max") - 1_000_000L) <= 1000L);
+  }
+
+  /**
+   * Interval snapshots only cover calls since previous interval and reset clears cumulative histograms
+   */
+  @Test
+  public void testIntervalAndReset() {
+    final LatencyHistograms histograms = new LatencyHistograms();
+    histograms.record("webflux", "get", "manual", 10L);
+    assertEquals(1L, histograms.snapshot(true, false).get(0).get("count"));
+    histograms.record("webflux", "get", "manual", 20L);
+    assertEquals(1L, histograms.snapshot(true, false).get(0).get("count"));
+    assertEquals(2L, histograms.snapshot(false, true).get(0).get("count"));
+    assertEquals(0L, histograms.snapshot(false, false).get(0).get("count"));
+  }
+  // Tests -
+
+}
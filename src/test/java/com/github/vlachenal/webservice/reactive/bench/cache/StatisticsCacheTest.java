@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.cache;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CallDTO;
+
+
+/**
+ * Statistics cache unit tests
+ *
+ * @author Vincent Lachenal
+ */
+public class StatisticsCacheTest {
+
+  // Methods +
+  /**
+   * Build client call
+   *
+   * @param protocol the protocol
+   * @param method the method
+   * @param seq the sequence
+   *
+   * @return the call
+   */
+  private static CallDTO clientCall(final String protocol, final String method, final int seq) {
+    final CallDTO call = new CallDTO();
+    call.setProtocol(protocol);
+    call.setMethod(method);
+    call.setSeq(seq);
+    return call;
+  }
+  // Methods -
+
+
+  // Tests +
+  /**
+   * Registered calls are merged on protocol, method and sequence
+   */
+  @Test
+  public void testMergeCall() {
+    final StatisticsCache cache = new StatisticsCache(16, 0);
+    cache.register("webflux", "get", 1, 10L, 20L);
+    cache.register("webflux", "list", 1, 30L, 40L);
+    cache.register("webflux", "get", -5, 50L, 60L);
+    CallDTO call = clientCall("webflux", "get", 1);
+    cache.mergeCall(call);
+    assertEquals(10L, call.getServerStart());
+    assertEquals(20L, call.getServerEnd());
+    call = clientCall("webflux", "list", 1);
+    cache.mergeCall(call);
+    assertEquals(30L, call.getServerStart());
+    call = clientCall("webflux", "get", -5);
+    cache.mergeCall(call);
+    assertEquals(60L, call.getServerEnd());
+    call = clientCall("rest", "get", 1);
+    cache.mergeCall(call);
+    assertEquals(-1L, call.getServerStart());
+    call = clientCall("webflux", "create", 1);
+    cache.mergeCall(call);
+    assertEquals(-1L, call.getServerStart());
+  }
+
+  /**
+   * Oldest generations are evicted once capacity is reached and cache is empty after clean
+   */
+  @Test
+  public void testEvictionAndClean() {
+    final StatisticsCache cache = new StatisticsCache(4, 0);
+    for(int i = 0 ; i < 16 ; ++i) {
+      cache.register("webflux", "create", i, i, i);
+    }
+    CallDTO call = clientCall("webflux", "create", 3);
+    cache.mergeCall(call);
+    assertEquals(-1L, call.getServerEnd());
+    call = clientCall("webflux", "create", 15);
+    cache.mergeCall(call);
+    assertEquals(15L, call.getServerEnd());
+    final Map<String,Long> counters = cache.getCounters();
+    assertEquals(Long.valueOf(12L), counters.get("evicted"));
+    assertEquals(Long.valueOf(0L), counters.get("rejected"));
+    assertEquals(Long.valueOf(1L), counters.get("missed"));
+    cache.clean();
+    call = clientCall("webflux", "create", 15);
+    cache.mergeCall(call);
+    assertEquals(-1L, call.getServerEnd());
+    assertEquals(Long.valueOf(0L), cache.getCounters().get("size"));
+  }
+
+  /**
+   * Cleaned slots are reused: only calls registered after clean are merged
+   */
+  @Test
+  public void testRegisterAfterClean() {
+    final StatisticsCache cache = new StatisticsCache(16, 0);
+    for(int i = 0 ; i < 4 ; ++i) {
+      cache.register("webflux", "get", i, i, i);
+    }
+    cache.clean();
+    cache.register("webflux", "get", 2, 200L, 210L);
+    CallDTO call = clientCall("webflux", "get", 2);
+    cache.mergeCall(call);
+    assertEquals(200L, call.getServerStart());
+    assertEquals(210L, call.getServerEnd());
+    call = clientCall("webflux", "get", 1);
+    cache.mergeCall(call);
+    assertEquals(-1L, call.getServerEnd());
+    assertEquals(Long.valueOf(1L), cache.getCounters().get("size"));
+  }
+
+  /**
+   * Cleaned calls are not counted as evicted when their generation is recycled
+   */
+  @Test
+  public void testCleanIsNotEviction() {
+    final StatisticsCache cache = new StatisticsCache(16, 0);
+    for(int i = 0 ; i < 3 ; ++i) {
+      cache.register("webflux", "get", i, i, i);
+    }
+    cache.clean();
+    assertEquals(Long.valueOf(0L), cache.getCounters().get("size"));
+    // 5 full generations: every generation is recycled once
+    for(int i = 0 ; i < 20 ; ++i) {
+      cache.register("webflux", "create", i, i, i);
+    }
+    final Map<String,Long> counters = cache.getCounters();
+    assertEquals(Long.valueOf(4L), counters.get("evicted"));
+    assertEquals(Long.valueOf(12L), counters.get("size"));
+  }
+
+  /**
+   * Calls are not merged once their time-to-live has expired
+   */
+  @Test
+  public void testTimeToLive() {
+    final AtomicLong clock = new AtomicLong(0L);
+    final StatisticsCache cache = new StatisticsCache(16, 1, clock::get);
+    cache.register("webflux", "get", 1, 10L, 20L);
+    CallDTO call = clientCall("webflux", "get", 1);
+    cache.mergeCall(call);
+    assertEquals(20L, call.getServerEnd());
+    clock.set(TimeUnit.MILLISECONDS.toNanos(900L));
+    call = clientCall("webflux", "get", 1);
+    cache.mergeCall(call);
+    assertEquals(20L, call.getServerEnd());
+    clock.set(TimeUnit.MILLISECONDS.toNanos(1300L));
+    call = clientCall("webflux", "get", 1);
+    cache.mergeCall(call);
+    assertEquals(-1L, call.getServerEnd());
+  }
+  // Tests -
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+
+/**
+ * Bulk batcher unit tests
+ *
+ * @author Vincent Lachenal
+ */
+public class BulkBatcherTest {
+
+  // Attributes +
+  /** Items requested to upstream */
+  private final AtomicLong requested = new AtomicLong();
+
+  /** Items received from upstream */
+  private final AtomicLong received = new AtomicLong();
+
+  /** Maximum number of items requested but not received yet */
+  private final AtomicLong maxPending = new AtomicLong();
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Track upstream demand
+   *
+   * @param items the items
+   *
+   * @return the tracked items
+   */
+  private Flux<Integer> track(final Flux<Integer> items) {
+    return items.doOnRequest(n -> {
+      final long pending = requested.addAndGet(n) - received.get();
+      maxPending.accumulateAndGet(pending, Math::max);
+    }).doOnNext(item -> received.incrementAndGet());
+  }
+
+  /**
+   * Insert batches slowly (as a slow DAO would do)
+   *
+   * @param batches the batches
+   * @param delay the insertion time of each batch
+   *
+   * @return the inserted items
+   */
+  private static List<Integer> insert(final Flux<List<Integer>> batches, final Duration delay) {
+    return batches.concatMap(batch -> Mono.delay(delay).thenMany(Flux.fromIterable(batch)), 1).collectList().block(Duration.ofSeconds(30));
+  }
+  // Methods -
+
+
+  // Tests +
+  /**
+   * Fast producer and slow consumer: upstream demand stays bounded to one
+   * batch ahead
+   */
+  @Test
+  public void testBoundedDemand() {
+    final Flux<Integer> items = track(Flux.range(0, 1000));
+    final List<Integer> inserted = insert(BulkBatcher.batches(items, 10, Duration.ofSeconds(10), Schedulers.parallel()), Duration.ofMillis(2));
+    assertEquals(IntStream.range(0, 1000).boxed().collect(Collectors.toList()), inserted);
+    assertEquals(1000L, received.get());
+    assertTrue("Requested " + requested.get(), requested.get() <= 1000L + 10L);
+    assertTrue("Pending " + maxPending.get(), maxPending.get() <= 10L);
+  }
+
+  /**
+   * Slow producer and slow consumer: incomplete batches are emitted after
+   * delay even if consumer is busy, without error nor unbounded demand
+   */
+  @Test
+  public void testIncompleteBatches() {
+    final Flux<Integer> items = track(Flux.range(0, 30).delayElements(Duration.ofMillis(5)));
+    final List<Integer> inserted = insert(BulkBatcher.batches(items, 8, Duration.ofMillis(12), Schedulers.parallel()), Duration.ofMillis(20));
+    assertEquals(IntStream.range(0, 30).boxed().collect(Collectors.toList()), inserted);
+    assertTrue("Pending " + maxPending.get(), maxPending.get() <= 8L);
+  }
+
+  /**
+   * Stalled producer: incomplete batch is emitted after delay
+   */
+  @Test
+  public void testMaxDelay() {
+    final Flux<Integer> items = Flux.concat(Flux.just(1, 2, 3), Flux.never());
+    final List<Integer> batch = BulkBatcher.batches(items, 10, Duration.ofMillis(50), Schedulers.parallel()).blockFirst(Duration.ofSeconds(5));
+    assertEquals(Arrays.asList(1, 2, 3), batch);
+  }
+
+  /**
+   * Producer error: emitted batches are kept, incomplete batch is discarded
+   */
+  @Test
+  public void testError() {
+    final Flux<Integer> items = Flux.concat(Flux.range(0, 5), Flux.error(new IllegalStateException("Invalid item")));
+    final List<List<Integer>> batches = BulkBatcher.batches(items, 2, Duration.ofSeconds(10), Schedulers.parallel())
+        .onErrorResume(IllegalStateException.class, e -> Flux.empty()).collectList().block(Duration.ofSeconds(5));
+    assertEquals(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(2, 3)), batches);
+  }
+  // Tests -
+
+}
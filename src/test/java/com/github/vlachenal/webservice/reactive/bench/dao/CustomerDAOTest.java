@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.PhoneDTO;
+
+
+/**
+ * Customer DAO unit tests
+ *
+ * @author Vincent Lachenal
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest
+public class CustomerDAOTest {
+
+  // Attributes +
+  /** Customer DAO */
+  @Autowired
+  private CustomerDAO dao;
+
+  /** Customer datasource */
+  @Qualifier("ds.customer")
+  @Autowired
+  private DataSource dataSource;
+
+  /** Customer with two addresses and two phones */
+  private UUID uuid;
+  // Attributes -
+
+
+  // Initialization +
+  /**
+   * Create customer with two addresses and two phones
+   */
+  @Before
+  public void before() {
+    new ResourceDatabasePopulator(new ClassPathResource("schema-hsqldb.sql")).execute(dataSource);
+    final CustomerDTO customer = new CustomerDTO();
+    customer.setFirstName("Chuck");
+    customer.setLastName("Norris");
+    customer.setBirthDate(new Date());
+    customer.setAddress(new AddressDTO("75000", "Paris", "France", "1 rue de Rivoli"));
+    customer.setPhones(Arrays.asList(new PhoneDTO((short)1, "+33123456789"), new PhoneDTO((short)2, "+33612345678")));
+    uuid = UUID.randomUUID();
+    dao.create(customer, uuid).block();
+    new JdbcTemplate(dataSource).update("INSERT INTO address (id,customer_id,line1,zip_code,city,country) VALUES (?,?,'2 rue de Rivoli','75001','Paris','France')",
+                                        UUID.randomUUID(), uuid);
+  }
+  // Initialization -
+
+
+  // Methods +
+  /**
+   * Check customer details
+   *
+   * @param customer the customer details
+   */
+  private void assertDetails(final CustomerDTO customer) {
+    assertNotNull(customer);
+    assertEquals(uuid.toString(), customer.getId());
+    assertTrue(Arrays.asList("1 rue de Rivoli", "2 rue de Rivoli").contains(customer.getAddress().getLines().get(0)));
+    final List<String> numbers = customer.getPhones().stream().map(PhoneDTO::getNumber).sorted().collect(Collectors.toList());
+    assertEquals(Arrays.asList("+33123456789", "+33612345678"), numbers);
+  }
+  // Methods -
+
+
+  // Tests +
+  /**
+   * Each phone is read once whatever the number of addresses
+   */
+  @Test
+  public void testGetDetails() {
+    assertDetails(dao.getDetails(uuid).block());
+  }
+
+  /**
+   * Each phone is read once whatever the number of addresses in caller thread
+   */
+  @Test
+  public void testGetDetailsBlocking() {
+    assertDetails(dao.getDetailsBlocking(uuid));
+  }
+
+  /**
+   * Unknown customer details are empty
+   */
+  @Test
+  public void testGetUnknownDetails() {
+    assertNull(dao.getDetails(UUID.randomUUID()).block());
+    assertNull(dao.getDetailsBlocking(UUID.randomUUID()));
+  }
+  // Tests -
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.dao.r2dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.PhoneDTO;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * R2DBC customer DAO unit tests on embedded H2 database
+ *
+ * @author Vincent Lachenal
+ */
+public class R2dbcCustomerDAOTest {
+
+  // Attributes +
+  /** R2DBC connection factory */
+  private ConnectionFactory factory;
+
+  /** Customer DAO */
+  private R2dbcCustomerDAO dao;
+  // Attributes -
+
+
+  // Initialization +
+  /**
+   * Create empty database and DAO
+   */
+  @Before
+  public void before() {
+    factory = ConnectionFactories.get("r2dbc:h2:mem:///customer-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    R2dbcConfig.executeScript(factory, new ClassPathResource("schema-hsqldb.sql")).block();
+    dao = new R2dbcCustomerDAO(factory, 2, 100);
+  }
+  // Initialization -
+
+
+  // Methods +
+  /**
+   * Build customer
+   *
+   * @param firstName the customer first name
+   * @param lastName the customer last name
+   *
+   * @return the customer
+   */
+  private static CustomerDTO customer(final String firstName, final String lastName) {
+    final CustomerDTO customer = new CustomerDTO();
+    customer.setFirstName(firstName);
+    customer.setLastName(lastName);
+    customer.setBirthDate(java.sql.Date.valueOf(LocalDate.of(1981, 5, 8)));
+    return customer;
+  }
+  // Methods -
+
+
+  // Tests +
+  /**
+   * Customer is created with its address and phones and read back
+   */
+  @Test
+  public void testCreateAndGetDetails() {
+    final CustomerDTO customer = customer("Chuck", "Norris");
+    customer.setEmail("chuck.norris@yopmail.com");
+    customer.setAddress(new AddressDTO("75000", "Paris", "France", "1 rue de Rivoli", "Bâtiment A"));
+    customer.setPhones(Arrays.asList(new PhoneDTO((short)1, "+33123456789"), new PhoneDTO((short)2, "+33612345678")));
+    final UUID uuid = UUID.randomUUID();
+    assertEquals(uuid.toString(), dao.create(customer, uuid).block());
+
+    final CustomerDTO details = dao.getDetails(uuid).block();
+    assertNotNull(details);
+    assertEquals(uuid.toString(), details.getId());
+    assertEquals("Chuck", details.getFirstName());
+    assertEquals("Norris", details.getLastName());
+    assertEquals("chuck.norris@yopmail.com", details.getEmail());
+    assertEquals(LocalDate.of(1981, 5, 8), new java.sql.Date(details.getBirthDate().getTime()).toLocalDate());
+    assertEquals("75000", details.getAddress().getZipCode());
+    assertEquals("Paris", details.getAddress().getCity());
+    assertEquals("France", details.getAddress().getCountry());
+    assertEquals(Arrays.asList("1 rue de Rivoli", "Bâtiment A"), details.getAddress().getLines().stream().filter(line -> line != null).collect(Collectors.toList()));
+    final Set<String> numbers = details.getPhones().stream().map(PhoneDTO::getNumber).collect(Collectors.toSet());
+    assertEquals(2, numbers.size());
+    assertTrue(numbers.contains("+33123456789"));
+    assertTrue(numbers.contains("+33612345678"));
+  }
+
+  /**
+   * Customer without address nor phone is created and read back
+   */
+  @Test
+  public void testCreateWithoutAddressNorPhone() {
+    final UUID uuid = UUID.randomUUID();
+    dao.create(customer("Jimi", "Hendrix"), uuid).block();
+    final CustomerDTO details = dao.getDetails(uuid).block();
+    assertNotNull(details);
+    assertNull(details.getAddress());
+    assertNull(details.getEmail());
+    assertTrue(details.getPhones().isEmpty());
+  }
+
+  /**
+   * Each phone is read once whatever the number of addresses
+   */
+  @Test
+  public void testGetDetailsWithTwoAddresses() {
+    final CustomerDTO customer = customer("Chuck", "Norris");
+    customer.setAddress(new AddressDTO("75000", "Paris", "France", "1 rue de Rivoli"));
+    customer.setPhones(Arrays.asList(new PhoneDTO((short)1, "+33123456789"), new PhoneDTO((short)2, "+33612345678")));
+    final UUID uuid = UUID.randomUUID();
+    dao.create(customer, uuid).block();
+    Mono.from(factory.create())
+      .flatMap(con -> Mono.from(con.createStatement("INSERT INTO address (id,customer_id,line1,zip_code,city,country) VALUES ($1,$2,'2 rue de Rivoli','75001','Paris','France')")
+                                .bind(0, UUID.randomUUID()).bind(1, uuid).execute())
+               .flatMap(res -> Mono.from(res.getRowsUpdated()))
+               .then(Mono.from(con.close())))
+      .block();
+
+    final CustomerDTO details = dao.getDetails(uuid).block();
+    assertNotNull(details);
+    assertTrue(Arrays.asList("1 rue de Rivoli", "2 rue de Rivoli").contains(details.getAddress().getLines().get(0)));
+    assertEquals(Arrays.asList("+33123456789", "+33612345678"), details.getPhones().stream().map(PhoneDTO::getNumber).sorted().collect(Collectors.toList()));
+  }
+
+  /**
+   * Unknown customer details are empty
+   */
+  @Test
+  public void testGetUnknownDetails() {
+    assertNull(dao.getDetails(UUID.randomUUID()).block());
+  }
+
+  /**
+   * Customers are created by batches, listed and deleted
+   */
+  @Test
+  public void testBulkCreateListAndDeleteAll() {
+    final List<CustomerDTO> customers = Arrays.asList(customer("Vincent", "Lachenal"), customer("Jim", "Morrison"), customer("Jimi", "Hendrix"));
+    customers.forEach(customer -> customer.setId(UUID.randomUUID().toString()));
+    final List<String> ids = dao.create(Flux.fromIterable(customers)).collectList().block();
+    assertEquals(customers.stream().map(CustomerDTO::getId).collect(Collectors.toList()), ids);
+
+    final List<CustomerDTO> listed = dao.listAll().collectList().block();
+    assertEquals(3, listed.size());
+    assertEquals(ids.stream().collect(Collectors.toSet()), listed.stream().map(CustomerDTO::getId).collect(Collectors.toSet()));
+
+    dao.deleteAll().block();
+    assertEquals(Collections.emptyList(), dao.listAll().collectList().block());
+  }
+  // Tests -
+
+}
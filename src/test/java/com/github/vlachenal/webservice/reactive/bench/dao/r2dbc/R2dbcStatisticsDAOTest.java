@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.dao.r2dbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CallDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.TestSuiteDTO;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import reactor.core.publisher.Flux;
+
+
+/**
+ * R2DBC statistics DAO unit tests on embedded H2 database
+ *
+ * @author Vincent Lachenal
+ */
+public class R2dbcStatisticsDAOTest {
+
+  // Attributes +
+  /** Statistics DAO */
+  private R2dbcStatisticsDAO dao;
+  // Attributes -
+
+
+  // Initialization +
+  /**
+   * Create empty database and DAO
+   */
+  @Before
+  public void before() {
+    final ConnectionFactory factory = ConnectionFactories.get("r2dbc:h2:mem:///stats-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    R2dbcConfig.executeScript(factory, new ClassPathResource("schema-hsqldb.sql")).block();
+    dao = new R2dbcStatisticsDAO(factory, 2);
+  }
+  // Initialization -
+
+
+  // Methods +
+  /**
+   * Build call
+   *
+   * @param method the method
+   * @param seq the request sequence
+   *
+   * @return the call
+   */
+  private static CallDTO call(final String method, final int seq) {
+    final CallDTO call = new CallDTO();
+    call.setMethod(method);
+    call.setSeq(seq);
+    call.setClientStart(seq * 100L);
+    call.setServerStart(seq * 100L + 10L);
+    call.setServerEnd(seq * 100L + 20L);
+    call.setClientEnd(seq * 100L + 30L);
+    call.setOk(seq % 2 == 0);
+    if(!call.isOk()) {
+      call.setErrMsg("HTTP 500");
+    }
+    return call;
+  }
+
+  /**
+   * Build test suite
+   *
+   * @param calls the test suite calls
+   *
+   * @return the test suite
+   */
+  private static TestSuiteDTO suite(final CallDTO... calls) {
+    final TestSuiteDTO suite = new TestSuiteDTO();
+    suite.setClientCpu("cpu");
+    suite.setClientMemory("16GB");
+    suite.setClientJvmVersion("11");
+    suite.setClientJvmVendor("vendor");
+    suite.setClientOsName("Linux");
+    suite.setClientOsVersion("5.4");
+    suite.setServerCpu("cpu");
+    suite.setServerMemory("16GB");
+    suite.setServerJvmVersion("11");
+    suite.setServerJvmVendor("vendor");
+    suite.setServerOsName("Linux");
+    suite.setServerOsVersion("5.4");
+    suite.setProtocol("webflux-r2dbc");
+    suite.setNbThreads(1);
+    suite.setMapper("manual");
+    suite.setCalls(Arrays.asList(calls));
+    return suite;
+  }
+  // Methods -
+
+
+  // Tests +
+  /**
+   * Test suite is saved with its calls and read back
+   */
+  @Test
+  public void testSaveAndFind() {
+    final UUID uuid = UUID.randomUUID();
+    assertEquals(uuid.toString(), dao.save(suite(call("get", 0), call("get", 1)), uuid).block());
+
+    final TestSuiteDTO found = dao.find(uuid).block();
+    assertNotNull(found);
+    assertEquals(uuid.toString(), found.getId());
+    assertEquals("webflux-r2dbc", found.getProtocol());
+    assertEquals("manual", found.getMapper());
+    assertNull(found.getCompression());
+    assertNull(found.getComment());
+    assertEquals(1, found.getNbThreads());
+
+    final List<CallDTO> calls = dao.streamCalls(uuid).collectList().block();
+    assertEquals(2, calls.size());
+    final CallDTO failed = calls.stream().filter(call -> call.getSeq() == 1).findFirst().get();
+    assertEquals("get", failed.getMethod());
+    assertEquals(100L, failed.getClientStart());
+    assertEquals(110L, failed.getServerStart());
+    assertEquals(120L, failed.getServerEnd());
+    assertEquals(130L, failed.getClientEnd());
+    assertFalse(failed.isOk());
+  }
+
+  /**
+   * Unknown test suite is empty
+   */
+  @Test
+  public void testFindUnknown() {
+    assertNull(dao.find(UUID.randomUUID()).block());
+  }
+
+  /**
+   * Calls are registered by batches
+   */
+  @Test
+  public void testRegisterCalls() {
+    final UUID uuid = UUID.randomUUID();
+    dao.save(suite(), uuid).block();
+    final Flux<CallDTO> calls = Flux.range(0, 5).map(seq -> call("list", seq));
+    assertEquals(Integer.valueOf(5), dao.registerCalls(uuid, calls).block());
+    assertEquals(Arrays.asList(0, 1, 2, 3, 4), dao.streamCalls(uuid).map(CallDTO::getSeq).sort().collect(Collectors.toList()).block());
+  }
+  // Tests -
+
+}
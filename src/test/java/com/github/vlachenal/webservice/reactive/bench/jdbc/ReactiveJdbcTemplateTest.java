@@ -6,18 +6,32 @@
  */
 package com.github.vlachenal.webservice.reactive.bench.jdbc;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.sql.DataSource;
@@ -27,18 +41,23 @@ import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.MethodSorters;
+import org.postgresql.copy.CopyIn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
 import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
 
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 
 /**
@@ -134,13 +153,14 @@ public class ReactiveJdbcTemplateTest {
     uuids.add(cust3.getId());
     final Flux<CustomerDTO> flux = Flux.fromStream(customers.stream());
     final String sql = "INSERT INTO Customer (id,first_name,last_name,birth_date,email) VALUES (?,?,?,?,?)";
-    jdbc.batchUpdate(sql, flux, 2, (ps, cust) -> {
+    final Integer count = jdbc.batchUpdateForMono(sql, flux, 2, (ps, cust) -> {
       ps.setObject(1, UUID.fromString(cust.getId()));
       ps.setString(2, cust.getFirstName());
       ps.setString(3, cust.getLastName());
       ps.setDate(4, new java.sql.Date(cust.getBirthDate().getTime()));
       ps.setString(5, cust.getEmail());
-    });
+    }).block();
+    assertEquals(Integer.valueOf(customers.size()), count);
     LOG.info("Exit testBatchUpdate");
   }
 
@@ -186,13 +206,14 @@ public class ReactiveJdbcTemplateTest {
     uuids.add(cust4.getId());
     final Flux<CustomerDTO> flux = Flux.fromStream(customers.stream());
     final String sql = "INSERT INTO Customer (id,first_name,last_name,birth_date,email) VALUES (?,?,?,?,?)";
-    jdbc.batchUpdate(sql, flux, 2, (ps, cust) -> {
+    final Integer count = jdbc.batchUpdateForMono(sql, flux, 2, (ps, cust) -> {
       ps.setObject(1, UUID.fromString(cust.getId()));
       ps.setString(2, cust.getFirstName());
       ps.setString(3, cust.getLastName());
       ps.setDate(4, new java.sql.Date(cust.getBirthDate().getTime()));
       ps.setString(5, cust.getEmail());
-    });
+    }).block();
+    assertEquals(Integer.valueOf(customers.size()), count);
     LOG.info("Exit testBatchUpdate");
   }
 
@@ -223,6 +244,200 @@ public class ReactiveJdbcTemplateTest {
     assertTrue(uuids.isEmpty());
     LOG.debug("Exit testQueryForFlux");
   }
+
+  /**
+   * Test that query is executed lazily on template scheduler
+   */
+  @Test
+  public void test04QueryForFluxOnScheduler() {
+    LOG.debug("Enter in testQueryForFluxOnScheduler");
+    final Scheduler scheduler = Schedulers.newSingle("jdbc-test");
+    try {
+      final ReactiveJdbcTemplate template = new ReactiveJdbcTemplate(dataSource, scheduler);
+      final Set<String> threads = new HashSet<>();
+      final Flux<String> flux = template.queryForFlux("SELECT id FROM Customer", (rs, rowNum) -> {
+        threads.add(Thread.currentThread().getName());
+        return rs.getString(1);
+      });
+      assertTrue("Query has been executed before subscription", threads.isEmpty());
+      final List<String> ids = flux.collectList().block();
+      assertEquals(jdbc.queryForObject("SELECT COUNT(*) FROM Customer", Integer.class).intValue(), ids.size());
+      threads.forEach(thread -> assertTrue("Row has been mapped in " + thread, thread.startsWith("jdbc-test")));
+    } finally {
+      scheduler.dispose();
+    }
+    LOG.debug("Exit testQueryForFluxOnScheduler");
+  }
+
+  /**
+   * Reactive batch update unit tests
+   */
+  @Test
+  public void test05BatchUpdateForMono() {
+    LOG.debug("Enter in testBatchUpdateForMono");
+    final Scheduler scheduler = Schedulers.newSingle("jdbc-test");
+    try {
+      final ReactiveJdbcTemplate template = new ReactiveJdbcTemplate(dataSource, scheduler);
+      final String sql = "INSERT INTO Customer (id,first_name,last_name,birth_date,email) VALUES (?,?,?,?,?)";
+      final UUID duplicate = UUID.randomUUID();
+      final Flux<UUID> ids = Flux.just(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), duplicate);
+      final ParameterizedPreparedStatementSetter<UUID> pss = (ps, id) -> {
+        ps.setObject(1, id);
+        ps.setString(2, "Bruce");
+        ps.setString(3, "Lee");
+        ps.setDate(4, java.sql.Date.valueOf("1940-11-27"));
+        ps.setString(5, "bruce.lee@yopmail.com");
+      };
+      assertEquals(Integer.valueOf(5), template.batchUpdateForMono(sql, ids, 2, pss).block());
+      try {
+        template.batchUpdateForMono(sql, Flux.just(duplicate), 2, pss).block();
+        fail("Duplicate customer has been inserted");
+      } catch(final DataAccessException e) {
+        LOG.info("Batch error has been propagated: {}", e.getMessage());
+      }
+    } finally {
+      scheduler.dispose();
+    }
+    LOG.debug("Exit testBatchUpdateForMono");
+  }
+
+  /**
+   * Parallel batch update unit tests
+   */
+  @Test
+  public void test06ParallelBatchUpdate() {
+    LOG.debug("Enter in testParallelBatchUpdate");
+    final Scheduler scheduler = Schedulers.newParallel("jdbc-test", 4);
+    try {
+      final ReactiveJdbcTemplate template = new ReactiveJdbcTemplate(dataSource, scheduler);
+      final String sql = "INSERT INTO Customer (id,first_name,last_name,birth_date,email) VALUES (?,?,?,?,?)";
+      final List<int[]> counts = template.parallelBatchUpdateForFlux(sql, Flux.range(0, 11).map(i -> UUID.randomUUID()), 4, 3, (ps, id) -> {
+        ps.setObject(1, id);
+        ps.setString(2, "Brandon");
+        ps.setString(3, "Lee");
+        ps.setDate(4, java.sql.Date.valueOf("1965-02-01"));
+        ps.setString(5, "brandon.lee@yopmail.com");
+      }).collectList().block();
+      assertEquals(4, counts.size());
+      assertEquals(2, counts.get(3).length);
+    } finally {
+      scheduler.dispose();
+    }
+    LOG.debug("Exit testParallelBatchUpdate");
+  }
+
+  /**
+   * Bulk insert unit tests (COPY is not supported by HSQLDB: falls back to batch update)
+   */
+  @Test
+  public void test07CopyIn() {
+    LOG.debug("Enter in testCopyIn");
+    final String[] columns = {"id", "first_name", "last_name", "birth_date", "email"};
+    final Long count = jdbc.copyIn("Customer", columns, Flux.range(0, 5), 2, i -> new Object[] {
+      UUID.randomUUID(), "Stephen", "King " + i, java.sql.Date.valueOf("1947-09-21"), null
+    }).block();
+    assertEquals(Long.valueOf(5), count);
+    assertEquals(Integer.valueOf(5), jdbc.queryForObject("SELECT COUNT(*) FROM Customer WHERE first_name = 'Stephen' AND email IS NULL", Integer.class));
+    LOG.debug("Exit testCopyIn");
+  }
+
+  /**
+   * Blocking transaction unit tests: commit on success, rollback on error
+   */
+  @Test
+  public void test08ExecuteInTransactionBlocking() {
+    LOG.debug("Enter in testExecuteInTransactionBlocking");
+    final String insert = "INSERT INTO Customer (id,first_name,last_name,birth_date) VALUES (?,'Terry','Pratchett',?)";
+    final Integer res = jdbc.executeInTransactionBlocking(con -> {
+      try(final PreparedStatement ps = con.prepareStatement(insert)) {
+        ps.setObject(1, UUID.randomUUID());
+        ps.setDate(2, java.sql.Date.valueOf("1948-04-28"));
+        return ps.executeUpdate();
+      }
+    });
+    assertEquals(Integer.valueOf(1), res);
+    try {
+      jdbc.executeInTransactionBlocking(con -> {
+        try(final PreparedStatement ps = con.prepareStatement(insert)) {
+          ps.setObject(1, UUID.randomUUID());
+          ps.setDate(2, java.sql.Date.valueOf("1948-04-28"));
+          ps.executeUpdate();
+        }
+        throw new IllegalStateException("Rollback");
+      });
+      fail("Transaction should have failed");
+    } catch(final IllegalStateException e) {
+      // Expected
+    }
+    assertEquals(Integer.valueOf(1), jdbc.queryForObject("SELECT COUNT(*) FROM Customer WHERE first_name = 'Terry'", Integer.class));
+    LOG.debug("Exit testExecuteInTransactionBlocking");
+  }
+  /**
+   * COPY session unit tests: cancellation signalled during a write waits for
+   * the write to return, then cancels COPY and releases connection
+   *
+   * @throws Exception unexpected error
+   */
+  @Test
+  public void test09CopySessionClose() throws Exception {
+    LOG.debug("Enter in testCopySessionClose");
+    final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch written = new CountDownLatch(1);
+    final CopyIn copy = (CopyIn)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {CopyIn.class}, (proxy, method, args) -> {
+      switch(method.getName()) {
+        case "writeToCopy":
+          writing.countDown();
+          written.await();
+          events.add("write");
+          return null;
+        case "isActive":
+          return Boolean.TRUE;
+        case "cancelCopy":
+          events.add("cancel");
+          return null;
+        default:
+          throw new UnsupportedOperationException(method.getName());
+      }
+    });
+    final Connection con = (Connection)Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+      if("close".equals(method.getName())) {
+        events.add("release");
+        return null;
+      }
+      throw new UnsupportedOperationException(method.getName());
+    });
+    final ReactiveJdbcTemplate.CopySession session = new ReactiveJdbcTemplate.CopySession(con, null, copy);
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Future<?> write = executor.submit(() -> {
+        session.write(new byte[] {'\n'});
+        return null;
+      });
+      assertTrue(writing.await(5, TimeUnit.SECONDS));
+      final Future<?> close = executor.submit(() -> {
+        session.close();
+        return null;
+      });
+      Thread.sleep(100L);
+      assertFalse(close.isDone());
+      written.countDown();
+      write.get(5, TimeUnit.SECONDS);
+      close.get(5, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(Arrays.asList("write", "cancel", "release"), events);
+    try {
+      session.write(new byte[] {'\n'});
+      fail("Closed session should reject writes");
+    } catch(final SQLException e) {
+      // Expected
+    }
+    session.close();
+    assertEquals(3, events.size());
+    LOG.debug("Exit testCopySessionClose");
+  }
   // Tests -
 
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.mapping.direct.DirectMapperStrategy;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Mapper;
+
+
+/**
+ * Mapping strategies warm-up unit tests
+ *
+ * @author Vincent Lachenal
+ */
+public class MappingWarmupTest {
+
+  // Methods +
+  /**
+   * Build manual mapper strategy
+   *
+   * @param fail the strategy fails on mapping
+   *
+   * @return the strategy
+   */
+  private static MapperStrategy strategy(final boolean fail) {
+    return new MapperStrategy() {
+
+      @Override
+      public Mapper getMapper() {
+        return Mapper.MANUAL;
+      }
+
+      @Override
+      public String getName() {
+        return "manual";
+      }
+
+      @Override
+      public Customer toRest(final CustomerDTO dto) {
+        if(fail) {
+          throw new IllegalStateException("Mapping failure");
+        }
+        return new Customer();
+      }
+
+      @Override
+      public CustomerDTO fromRest(final Customer customer) {
+        return new CustomerDTO();
+      }
+
+    };
+  }
+
+  /**
+   * Wait for condition
+   *
+   * @param condition the condition
+   *
+   * @throws InterruptedException interrupted
+   */
+  private static void await(final BooleanSupplier condition) throws InterruptedException {
+    for(int i = 0 ; i < 500 && !condition.getAsBoolean() ; ++i) {
+      Thread.sleep(10L);
+    }
+  }
+  // Methods -
+
+
+  // Tests +
+  /**
+   * Application is ready once warm-up has succeeded
+   *
+   * @throws InterruptedException interrupted
+   */
+  @Test
+  public void testWarmup() throws InterruptedException {
+    final MappingWarmup warmup = new MappingWarmup(new MapperStrategies(Collections.singletonList(strategy(false))), 10);
+    warmup.start(null);
+    await(warmup::isReady);
+    assertTrue(warmup.isReady());
+    assertNull(warmup.getFailure());
+  }
+
+  /**
+   * JSON strategies are warmed up with JSON writing too
+   *
+   * @throws InterruptedException interrupted
+   */
+  @Test
+  public void testWarmupJson() throws InterruptedException {
+    final MappingWarmup warmup = new MappingWarmup(new MapperStrategies(Arrays.asList(strategy(false), new DirectMapperStrategy())), 10);
+    warmup.start(null);
+    await(() -> warmup.isReady() || warmup.getFailure() != null);
+    assertNull(warmup.getFailure());
+    assertTrue(warmup.isReady());
+  }
+
+  /**
+   * Application is never ready when warm-up has failed
+   *
+   * @throws InterruptedException interrupted
+   */
+  @Test
+  public void testWarmupFailure() throws InterruptedException {
+    final MappingWarmup warmup = new MappingWarmup(new MapperStrategies(Collections.singletonList(strategy(true))), 10);
+    warmup.start(null);
+    await(() -> warmup.getFailure() != null);
+    assertEquals("Mapping failure", warmup.getFailure().getMessage());
+    assertFalse(warmup.isReady());
+  }
+  // Tests -
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping.bytecode;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Test;
+
+import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.PhoneDTO;
+import com.github.vlachenal.webservice.reactive.bench.mapping.manual.CustomerBridge;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Customer;
+import com.github.vlachenal.webservice.reactive.bench.rest.api.model.Phone;
+
+
+/**
+ * Generated mapper unit tests
+ *
+ * @author Vincent Lachenal
+ */
+public class GeneratedMapperTest {
+
+  // Methods +
+  /**
+   * Build customer DTO
+   *
+   * @return the customer
+   */
+  private static CustomerDTO customer() {
+    final CustomerDTO dto = new CustomerDTO();
+    dto.setId("42");
+    dto.setFirstName("Chuck");
+    dto.setLastName("Norris");
+    dto.setEmail("chuck.norris@yopmail.com");
+    dto.setBirthDate(new Date());
+    dto.setAddress(new AddressDTO("75000", "Paris", "France", "1 rue de Rivoli", "2ème étage"));
+    dto.setPhones(Arrays.asList(new PhoneDTO((short)1, "+33123456789"), new PhoneDTO((short)2, "+33612345678")));
+    return dto;
+  }
+  // Methods -
+
+
+  // Tests +
+  /**
+   * Generated mapper gives the same result as manual bridges
+   */
+  @Test
+  public void testToRest() {
+    final CustomerDTO dto = customer();
+    final Customer expected = CustomerBridge.toRest(dto);
+    final Customer customer = GeneratedMapper.generate(CustomerDTO.class, Customer.class).map(dto);
+    assertEquals(expected.getId(), customer.getId());
+    assertEquals(expected.getFirstName(), customer.getFirstName());
+    assertEquals(expected.getLastName(), customer.getLastName());
+    assertEquals(expected.getEmail(), customer.getEmail());
+    assertEquals(expected.getBirthDate(), customer.getBirthDate());
+    assertEquals(expected.getAddress().getLines(), customer.getAddress().getLines());
+    assertEquals(expected.getAddress().getZipCode(), customer.getAddress().getZipCode());
+    assertEquals(expected.getAddress().getCity(), customer.getAddress().getCity());
+    assertEquals(expected.getAddress().getCountry(), customer.getAddress().getCountry());
+    assertEquals(2, customer.getPhones().size());
+    assertEquals(Phone.Type.LANDLINE, customer.getPhones().get(0).getType());
+    assertEquals(Phone.Type.MOBILE, customer.getPhones().get(1).getType());
+    assertEquals("+33612345678", customer.getPhones().get(1).getNumber());
+  }
+
+  /**
+   * REST to DTO round trip and null values
+   */
+  @Test
+  public void testFromRest() {
+    final CustomerDTO expected = customer();
+    expected.setEmail(null);
+    final CustomerDTO dto = GeneratedMapper.generate(Customer.class, CustomerDTO.class).map(CustomerBridge.toRest(expected));
+    assertEquals(expected.getFirstName(), dto.getFirstName());
+    assertNull(dto.getEmail());
+    assertEquals(expected.getAddress().getCity(), dto.getAddress().getCity());
+    assertEquals(PhoneDTO.Type.MOBILE, dto.getPhones().get(1).getType());
+    assertNull(GeneratedMapper.generate(Customer.class, CustomerDTO.class).map(null));
+  }
+  // Tests -
+
+}
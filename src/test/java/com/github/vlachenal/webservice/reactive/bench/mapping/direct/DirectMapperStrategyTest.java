@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.mapping.direct;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.vlachenal.webservice.reactive.bench.dto.AddressDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.CustomerDTO;
+import com.github.vlachenal.webservice.reactive.bench.dto.PhoneDTO;
+import com.github.vlachenal.webservice.reactive.bench.mapping.manual.CustomerBridge;
+
+import reactor.core.publisher.Flux;
+
+
+/**
+ * Direct JSON mapper strategy unit tests: written JSON has to be the same as
+ * Jackson serialization of REST customers
+ *
+ * @author Vincent Lachenal
+ */
+public class DirectMapperStrategyTest {
+
+  // Attributes +
+  /** Jackson object mapper (configured as WebFlux encoder one) */
+  private final ObjectMapper jackson = Jackson2ObjectMapperBuilder.json().build();
+
+  /** Direct mapper strategy */
+  private final DirectMapperStrategy strategy = new DirectMapperStrategy();
+
+  /** Buffer factory */
+  private final DefaultDataBufferFactory factory = new DefaultDataBufferFactory();
+  // Attributes -
+
+
+  // Methods +
+  /**
+   * Build customer DTO
+   *
+   * @param lastName the customer last name
+   *
+   * @return the customer
+   */
+  private static CustomerDTO customer(final String lastName) {
+    final CustomerDTO dto = new CustomerDTO();
+    dto.setId("42");
+    dto.setFirstName("Chuck");
+    dto.setLastName(lastName);
+    dto.setEmail("chuck.norris@yopmail.com");
+    dto.setBirthDate(new Date());
+    dto.setAddress(new AddressDTO("75000", "Paris", "France", "1 rue de \"Rivoli\"", "2ème étage"));
+    dto.setPhones(Arrays.asList(new PhoneDTO((short)1, "+33123456789"), new PhoneDTO((short)2, "+33612345678")));
+    return dto;
+  }
+
+  /**
+   * Read buffers as JSON tree
+   *
+   * @param buffers the buffers
+   *
+   * @return the JSON tree
+   *
+   * @throws IOException invalid JSON
+   */
+  private JsonNode read(final Flux<DataBuffer> buffers) throws IOException {
+    final DataBuffer buffer = DataBufferUtils.join(buffers).block();
+    try {
+      return jackson.readTree(buffer.asInputStream());
+    } finally {
+      DataBufferUtils.release(buffer);
+    }
+  }
+
+  /**
+   * Check customer JSON
+   *
+   * @param dto the customer DTO
+   *
+   * @throws IOException invalid JSON
+   */
+  private void assertJson(final CustomerDTO dto) throws IOException {
+    final JsonNode expected = jackson.valueToTree(CustomerBridge.toRest(dto));
+    assertEquals(expected, read(Flux.from(strategy.toJson(dto, factory))));
+  }
+
+  /**
+   * Check customers JSON array
+   *
+   * @param dtos the customer DTOs
+   *
+   * @throws IOException invalid JSON
+   */
+  private void assertJsonArray(final List<CustomerDTO> dtos) throws IOException {
+    final JsonNode expected = jackson.valueToTree(dtos.stream().map(CustomerBridge::toRest).collect(Collectors.toList()));
+    assertEquals(expected, read(strategy.toJsonArray(Flux.fromIterable(dtos), factory)));
+  }
+  // Methods -
+
+
+  // Tests +
+  /**
+   * Customer with address and phones
+   *
+   * @throws IOException invalid JSON
+   */
+  @Test
+  public void testToJson() throws IOException {
+    assertJson(customer("Norris"));
+  }
+
+  /**
+   * Customer without address nor email
+   *
+   * @throws IOException invalid JSON
+   */
+  @Test
+  public void testToJsonWithoutAddress() throws IOException {
+    final CustomerDTO dto = customer("Norris");
+    dto.setAddress(null);
+    dto.setEmail(null);
+    assertJson(dto);
+  }
+
+  /**
+   * Customer without phone (empty and null list)
+   *
+   * @throws IOException invalid JSON
+   */
+  @Test
+  public void testToJsonWithoutPhone() throws IOException {
+    final CustomerDTO dto = customer("Norris");
+    dto.setPhones(Collections.emptyList());
+    assertJson(dto);
+    dto.setPhones(null);
+    assertJson(dto);
+  }
+
+  /**
+   * Empty, single element and multiple elements arrays
+   *
+   * @throws IOException invalid JSON
+   */
+  @Test
+  public void testToJsonArray() throws IOException {
+    assertJsonArray(Collections.emptyList());
+    assertJsonArray(Collections.singletonList(customer("Norris")));
+    final CustomerDTO noAddress = customer("Lee");
+    noAddress.setAddress(null);
+    noAddress.setPhones(Collections.emptyList());
+    assertJsonArray(Arrays.asList(customer("Norris"), noAddress, customer("Van Damme")));
+  }
+  // Tests -
+
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.webflux.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.github.vlachenal.webservice.reactive.bench.dao.CustomerDAO;
+
+
+/**
+ * Customer handler unit tests
+ *
+ * @author Vincent Lachenal
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(properties = {"ds.customer.bulk.batchSize=2"})
+public class CustomerHandlerTest {
+
+  // Attributes +
+  /** Application context */
+  @Autowired
+  private ApplicationContext ctx;
+
+  /** Customer DAO */
+  @Autowired
+  private CustomerDAO dao;
+
+  /** Customer datasource */
+  @Qualifier("ds.customer")
+  @Autowired
+  private DataSource dataSource;
+
+  /** Web client */
+  private WebTestClient client;
+  // Attributes -
+
+
+  // Initialization +
+  /**
+   * Create schema and web client
+   */
+  @Before
+  public void before() {
+    new ResourceDatabasePopulator(new ClassPathResource("schema-hsqldb.sql")).execute(dataSource);
+    client = WebTestClient.bindToApplicationContext(ctx).build();
+  }
+  // Initialization -
+
+
+  // Methods +
+  /**
+   * Build JSON customer
+   *
+   * @param lastName the customer last name
+   *
+   * @return the customer
+   */
+  private static String customer(final String lastName) {
+    return "{\"first_name\":\"Bulk\",\"last_name\":" + ((lastName == null) ? "null" : "\"" + lastName + "\"")
+        + ",\"birth_date\":\"2000-01-01\",\"phones\":[{\"type\":\"MOBILE\",\"number\":\"0102030405\"}]}\n";
+  }
+  // Methods -
+
+
+  // Tests +
+  /**
+   * Bulk creation of a valid stream followed by an invalid customer: created
+   * identifiers are sent and committed, then response ends with an error line
+   */
+  @Test
+  public void testBulkCreateWithInvalidCustomer() {
+    final String body = customer("Committed") + customer("Committed") + customer("Discarded") + customer(null) + customer("Discarded");
+    final List<String> lines = client.post().uri("/webflux/customer/bulk")
+        .contentType(MediaType.APPLICATION_STREAM_JSON).accept(MediaType.TEXT_PLAIN).syncBody(body)
+        .exchange().expectStatus().isOk()
+        .returnResult(String.class).getResponseBody().collectList().block();
+    assertEquals(3, lines.size());
+    // First batch has been committed, batch with invalid customer has not
+    for(final String id : lines.subList(0, 2)) {
+      assertNotNull(dao.getDetails(UUID.fromString(id)).block());
+    }
+    assertEquals(Integer.valueOf(0), new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM Customer WHERE last_name = 'Discarded'", Integer.class));
+    assertTrue(lines.get(2), lines.get(2).startsWith("error: "));
+  }
+
+  /**
+   * Bulk creation of a valid stream: every identifier is sent
+   */
+  @Test
+  public void testBulkCreate() {
+    final List<String> lines = client.post().uri("/webflux/customer/bulk")
+        .contentType(MediaType.APPLICATION_STREAM_JSON).accept(MediaType.TEXT_PLAIN).syncBody(customer("One") + customer("Two") + customer("Three"))
+        .exchange().expectStatus().isOk()
+        .returnResult(String.class).getResponseBody().collectList().block();
+    assertEquals(3, lines.size());
+    for(final String id : lines) {
+      assertNotNull(dao.getDetails(UUID.fromString(id)).block());
+    }
+  }
+
+  /**
+   * Customer created with R2DBC persistence is only read with R2DBC
+   * persistence
+   */
+  @Test
+  public void testR2dbcPersistence() {
+    final String id = client.post().uri("/webflux/customer").header("persistence", "r2dbc")
+        .contentType(MediaType.APPLICATION_JSON_UTF8).accept(MediaType.TEXT_PLAIN).syncBody(customer("R2dbc"))
+        .exchange().expectStatus().isCreated()
+        .returnResult(String.class).getResponseBody().blockFirst();
+    client.get().uri("/webflux/customer/" + id).header("persistence", "r2dbc").accept(MediaType.APPLICATION_JSON_UTF8)
+      .exchange().expectStatus().isOk();
+    client.get().uri("/webflux/customer/" + id).accept(MediaType.APPLICATION_JSON_UTF8)
+      .exchange().expectStatus().isNotFound();
+    client.get().uri("/webflux/customer/nope").header("persistence", "r2dbc").accept(MediaType.APPLICATION_JSON_UTF8)
+      .exchange().expectStatus().isBadRequest();
+  }
+  // Tests -
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2017 Vincent Lachenal
+ * This work is free. You can redistribute it and/or modify it under the
+ * terms of the Do What The Fuck You Want To Public License, Version 2,
+ * as published by Sam Hocevar. See the COPYING file for more details.
+ */
+package com.github.vlachenal.webservice.reactive.bench.webflux.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.result.view.ViewResolver;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+/**
+ * Timed server response unit tests
+ *
+ * @author Vincent Lachenal
+ */
+public class TimedServerResponseTest {
+
+  // Attributes +
+  /** Response writing context */
+  private static final ServerResponse.Context CONTEXT = new ServerResponse.Context() {
+
+    @Override
+    public List<HttpMessageWriter<?>> messageWriters() {
+      return HandlerStrategies.withDefaults().messageWriters();
+    }
+
+    @Override
+    public List<ViewResolver> viewResolvers() {
+      return Collections.emptyList();
+    }
+
+  };
+  // Attributes -
+
+
+  // Tests +
+  /**
+   * Callback is run once lazy body has been written, not when response has
+   * been built
+   */
+  @Test
+  public void testTimedUntilWritten() {
+    final AtomicInteger calls = new AtomicInteger();
+    final AtomicLong bodyEnd = new AtomicLong();
+    final AtomicLong end = new AtomicLong();
+    final Flux<String> body = Flux.just("a", "b").delayElements(Duration.ofMillis(50)).doOnComplete(() -> bodyEnd.set(System.nanoTime()));
+    final ServerResponse res = TimedServerResponse.timed(ServerResponse.ok().contentType(MediaType.TEXT_PLAIN).body(body, String.class), () -> {
+      calls.incrementAndGet();
+      end.set(System.nanoTime());
+    }).block();
+    assertEquals(0, calls.get());
+    final MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+    res.writeTo(exchange, CONTEXT).block(Duration.ofSeconds(5));
+    assertEquals(1, calls.get());
+    assertTrue(end.get() >= bodyEnd.get());
+    assertEquals("ab", exchange.getResponse().getBodyAsString().block());
+  }
+
+  /**
+   * Callback is run when there is no response to write
+   */
+  @Test
+  public void testTimedError() {
+    final AtomicInteger calls = new AtomicInteger();
+    TimedServerResponse.timed(Mono.error(new IllegalStateException("No response")), calls::incrementAndGet)
+      .onErrorResume(IllegalStateException.class, e -> Mono.empty()).block();
+    assertEquals(1, calls.get());
+  }
+  // Tests -
+
+}